@@ -0,0 +1,179 @@
+package io.jenkins.plugins.ossarchiver;
+
+import hudson.FilePath;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.io.IOUtils;
+
+import java.io.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Packs the files matched by one artifact into a tar.gz or zip stream.
+ * <p>
+ * {@link #open} runs the packing on its own thread and hands back the read end of a pipe, so the archive can be
+ * uploaded while it is being built without a temporary file.
+ */
+public class ArchiveStreamer {
+    public static final String FORMAT_TAR_GZ = "tar.gz";
+    public static final String FORMAT_ZIP = "zip";
+    private static final int PIPE_SIZE = 1024 * 1024;
+
+    private final String format;
+    private final int level;
+    private final int threads;
+
+    public ArchiveStreamer(String format, Integer level, int threads) {
+        this.format = format;
+        this.level = level == null ? Deflater.DEFAULT_COMPRESSION : level;
+        this.threads = threads;
+    }
+
+    public static String getExtension(String format) {
+        return "." + format;
+    }
+
+    /**
+     * @param folder   entries are named relative to this folder
+     * @param manifest receives one {@code size<TAB>name} line per entry when not null
+     */
+    public Stream open(FilePath folder, ArtifactWalker files, StringBuilder manifest) throws IOException {
+        PipedInputStream pipeIn = new PipedInputStream(PIPE_SIZE);
+        PipedOutputStream pipeOut = new PipedOutputStream(pipeIn);
+        Stream stream = new Stream(pipeIn);
+        Thread producer = new NamingThreadFactory(new DaemonThreadFactory(), "OSSArchiver archive").newThread(() -> {
+            try {
+                write(folder, files, manifest, stream, pipeOut);
+            } catch (Throwable t) {
+                // Set before closing the pipe, so the reader never sees a clean end of a failed archive
+                stream.failure = t;
+            } finally {
+                IOUtils.closeQuietly(pipeOut);
+            }
+        });
+        producer.start();
+        return stream;
+    }
+
+    private void write(FilePath folder, ArtifactWalker files, StringBuilder manifest, Stream stream, OutputStream out) throws IOException, InterruptedException {
+        if (FORMAT_ZIP.equals(format)) {
+            try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out))) {
+                zip.setLevel(level);
+                for (FilePath file = files.next(); file != null; file = files.next()) {
+                    String name = getEntryName(file, folder);
+                    if (name == null) {
+                        continue;
+                    }
+                    ZipEntry entry = new ZipEntry(name);
+                    entry.setTime(file.lastModified());
+                    zip.putNextEntry(entry);
+                    long size = copy(file, zip);
+                    zip.closeEntry();
+                    appendManifest(manifest, size, name);
+                    stream.entries++;
+                }
+            }
+            return;
+        }
+        ExecutorService compressor = null;
+        OutputStream gzip;
+        if (threads > 1) {
+            compressor = Executors.newFixedThreadPool(threads, new NamingThreadFactory(new DaemonThreadFactory(), "OSSArchiver compress"));
+            gzip = new ParallelGzipOutputStream(out, level, compressor, threads);
+        } else {
+            gzip = new ParallelGzipOutputStream.LevelGZIPOutputStream(out, level);
+        }
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(new BufferedOutputStream(gzip))) {
+            tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+            for (FilePath file = files.next(); file != null; file = files.next()) {
+                String name = getEntryName(file, folder);
+                if (name == null) {
+                    continue;
+                }
+                TarArchiveEntry entry = new TarArchiveEntry(name);
+                entry.setSize(file.length());
+                entry.setModTime(file.lastModified());
+                int mode = file.mode();
+                if (mode != -1) {
+                    entry.setMode(mode);
+                }
+                tar.putArchiveEntry(entry);
+                copy(file, tar);
+                tar.closeArchiveEntry();
+                appendManifest(manifest, entry.getSize(), name);
+                stream.entries++;
+            }
+        } finally {
+            if (compressor != null) {
+                compressor.shutdownNow();
+            }
+        }
+    }
+
+    private String getEntryName(FilePath file, FilePath folder) {
+        String name = OSSUploader.getRelativePath(file, folder);
+        return name == null ? null : name.replace(File.separator, "/");
+    }
+
+    private long copy(FilePath file, OutputStream out) throws IOException, InterruptedException {
+        try (InputStream inputStream = file.read()) {
+            return IOUtils.copyLarge(inputStream, out);
+        }
+    }
+
+    private void appendManifest(StringBuilder manifest, long size, String name) {
+        if (manifest != null) {
+            manifest.append(size).append('\t').append(name).append('\n');
+        }
+    }
+
+    /**
+     * Read end of the archive, reports a failure of the packing thread once the data runs out.
+     */
+    public static class Stream extends FilterInputStream {
+        private volatile Throwable failure;
+        private volatile int entries;
+
+        Stream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                checkFailure();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n == -1) {
+                checkFailure();
+            }
+            return n;
+        }
+
+        /**
+         * @return number of files packed so far, final once the stream has been read to the end
+         */
+        public int getEntries() {
+            return entries;
+        }
+
+        private void checkFailure() throws IOException {
+            if (failure != null) {
+                throw new IOException("Create archive failed", failure);
+            }
+        }
+    }
+}
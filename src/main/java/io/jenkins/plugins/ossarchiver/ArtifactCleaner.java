@@ -0,0 +1,332 @@
+package io.jenkins.plugins.ossarchiver;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.DeleteObjectsRequest;
+import com.aliyun.oss.model.ListObjectsRequest;
+import com.aliyun.oss.model.OSSObjectSummary;
+import com.aliyun.oss.model.ObjectListing;
+import com.cloudbees.plugins.credentials.CredentialsMatchers;
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
+import hudson.Extension;
+import hudson.Util;
+import hudson.init.Terminator;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.security.ACL;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Deletes the objects of builds Jenkins discarded.
+ * <p>
+ * When a build is deleted, the keys its {@link OSSArchiverAction}s recorded are deleted in the background with
+ * batched DeleteObjects requests, from the target and every mirror the objects were copied to. Objects a sync shares
+ * with other builds are kept. The {@link Reconciler}
+ * catches what this missed, like deletions interrupted by a restart, by listing the build folders of every job
+ * page by page. Both go at most {@link OSSArchiverConfiguration#getMaxCleanupRateOrDefault()} objects per second,
+ * and each batch waits up to {@link #MAX_BUSY_WAIT} for running publishes to end, so cleanup slows down rather than
+ * competing with uploads, yet still makes progress on a controller that is never idle.
+ */
+public final class ArtifactCleaner {
+    private static final Logger LOGGER = Logger.getLogger(ArtifactCleaner.class.getName());
+    private static final int DELETE_BATCH_SIZE = 1000;
+    private static final int LIST_PAGE_SIZE = 1000;
+    private static final long BUSY_RETRY_DELAY = TimeUnit.SECONDS.toMillis(10);
+    private static final long MAX_BUSY_WAIT = TimeUnit.MINUTES.toMillis(1);
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(
+            new NamingThreadFactory(new DaemonThreadFactory(), "OSSArchiver cleanup"));
+    private static final TokenBucket RATE = new TokenBucket(0);
+
+    private ArtifactCleaner() {
+    }
+
+    /**
+     * @param maxRate objects deleted per second
+     */
+    static void configure(int maxRate) {
+        RATE.setRate(maxRate);
+    }
+
+    @Terminator
+    public static void shutdown() {
+        // What is left is found by the reconciler
+        EXECUTOR.shutdownNow();
+    }
+
+    /**
+     * Queues the deletion of the objects of {@code run}, reading their keys right away as the build folder is
+     * deleted next. The same keys are deleted from every {@link OSSArchiverAction#getMirrors() mirror}.
+     */
+    static void deleteObjects(Run<?, ?> run) {
+        List<OSSArchiverAction> actions = run.getActions(OSSArchiverAction.class);
+        if (actions.isEmpty()) {
+            return;
+        }
+        OSSArchiverConfiguration configuration = OSSArchiverConfiguration.get();
+        for (OSSArchiverAction action : actions) {
+            if (action.isSync()) {
+                LOGGER.log(Level.FINE, "Keeping the synced objects of {0}", run);
+                continue;
+            }
+            ArtifactList list = action.getArtifacts();
+            String bucket = list.getBucket();
+            if (bucket == null) {
+                // Older builds only kept URLs
+                continue;
+            }
+            List<String> keys = new ArrayList<>(list.getEntries().size() + 1);
+            for (ArtifactList.Entry entry : list.getEntries()) {
+                String key = list.getObjectKey(entry);
+                if (key != null) {
+                    keys.add(key);
+                }
+            }
+            if (action.getChecksumsUrl() != null && bucket.equals(ArtifactList.getBucket(action.getChecksumsUrl()))) {
+                keys.add(ArtifactList.getKey(action.getChecksumsUrl()));
+            }
+            if (keys.isEmpty()) {
+                continue;
+            }
+            deleteObjects(configuration, run, action.getTarget(), bucket, keys);
+            for (String mirror : action.getMirrors()) {
+                deleteObjects(configuration, run, mirror, null, keys);
+            }
+        }
+    }
+
+    /**
+     * @param targetName name of the target holding the objects, null for the default target
+     * @param bucket     bucket the objects were uploaded to, null for the current bucket of the target
+     */
+    private static void deleteObjects(OSSArchiverConfiguration configuration, Run<?, ?> run, String targetName, String bucket,
+                                      List<String> keys) {
+        OSSTarget target;
+        try {
+            target = configuration.getTarget(targetName);
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Target {0} was removed, keeping the objects of {1} in it", new Object[]{targetName, run});
+            return;
+        }
+        OSSClientSettings settings = createClientSettings(configuration, target, run.getParent());
+        if (settings == null) {
+            LOGGER.log(Level.WARNING, "Credentials {0} not found, keeping the objects of {1} in {2}",
+                    new Object[]{target.getCredentialsId(), run, target});
+            return;
+        }
+        String actualBucket = bucket != null ? bucket : target.getBucket();
+        String name = run.getFullDisplayName();
+        EXECUTOR.execute(() -> {
+            try (OSSClientCache.Lease lease = OSSClientCache.acquire(settings)) {
+                delete(lease.getClient(), actualBucket, keys);
+                LOGGER.log(Level.FINE, "Deleted {0} objects of {1} in {2}", new Object[]{keys.size(), name, target});
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (OSSException | ClientException e) {
+                LOGGER.log(Level.WARNING, "Failed to delete the objects of " + name + " in " + target, e);
+            }
+        });
+    }
+
+    private static void delete(OSSClient ossClient, String bucket, List<String> keys) throws InterruptedException {
+        for (int from = 0; from < keys.size(); from += DELETE_BATCH_SIZE) {
+            List<String> batch = keys.subList(from, Math.min(from + DELETE_BATCH_SIZE, keys.size()));
+            throttle(batch.size());
+            DeleteObjectsRequest request = new DeleteObjectsRequest(bucket);
+            request.setKeys(new ArrayList<>(batch));
+            request.setQuiet(true);
+            ossClient.deleteObjects(request);
+        }
+    }
+
+    /**
+     * Waits until no publish is running, at most {@link #MAX_BUSY_WAIT}, and until {@code objects} fit into the rate.
+     */
+    private static void throttle(int objects) throws InterruptedException {
+        for (long waited = 0; waited < MAX_BUSY_WAIT && !UploadScheduler.isIdle(); waited += BUSY_RETRY_DELAY) {
+            Thread.sleep(BUSY_RETRY_DELAY);
+        }
+        long wait = RATE.charge(objects);
+        if (wait > 0) {
+            Thread.sleep(wait);
+        }
+    }
+
+    private static OSSClientSettings createClientSettings(OSSArchiverConfiguration configuration, OSSTarget target, Job<?, ?> job) {
+        StandardUsernamePasswordCredentials credentials = CredentialsMatchers.firstOrNull(
+                CredentialsProvider.lookupCredentials(StandardUsernamePasswordCredentials.class, job, ACL.SYSTEM, Collections.emptyList()),
+                CredentialsMatchers.withId(target.getCredentialsId()));
+        if (credentials == null) {
+            return null;
+        }
+        return configuration.createClientSettings(target, credentials);
+    }
+
+    /**
+     * @return folder holding one folder per build of {@code job}, or null unless the global upload folder has a
+     * segment of only {@code ${BUILD_NUMBER}} or {@code ${BUILD_ID}} after one with {@code ${JOB_NAME}}, and no
+     * other variables before it
+     */
+    static String getBuildsFolder(String uploadFolder, String jobName) {
+        String[] segments = uploadFolder.split("/");
+        StringBuilder folder = new StringBuilder();
+        boolean perJob = false;
+        for (String segment : segments) {
+            if (isBuildVariable(segment)) {
+                return perJob ? KeyBuilder.normalize(folder.toString()) + "/" : null;
+            }
+            String expanded = Util.replaceMacro(segment, Collections.singletonMap("JOB_NAME", jobName));
+            if (expanded.contains("$")) {
+                return null;
+            }
+            perJob |= !expanded.equals(segment);
+            folder.append(expanded).append('/');
+        }
+        return null;
+    }
+
+    private static boolean isBuildVariable(String segment) {
+        return segment.equals("${BUILD_NUMBER}") || segment.equals("$BUILD_NUMBER")
+                || segment.equals("${BUILD_ID}") || segment.equals("$BUILD_ID");
+    }
+
+    /**
+     * @return whether {@code folder} is named after a build of {@code job} that no longer exists
+     */
+    private static boolean isDeletedBuild(Job<?, ?> job, String folder) {
+        int number;
+        try {
+            number = Integer.parseInt(folder);
+        } catch (NumberFormatException e) {
+            // Build ids of old Jenkins versions were timestamps
+            return false;
+        }
+        return number > 0 && number < job.getNextBuildNumber() && job.getBuildByNumber(number) == null;
+    }
+
+    @Extension
+    public static class Listener extends RunListener<Run<?, ?>> {
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            if (!OSSArchiverConfiguration.get().isCleanupDeletedBuilds()) {
+                return;
+            }
+            try {
+                deleteObjects(run);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to queue the deletion of the objects of " + run, e);
+            }
+        }
+    }
+
+    /**
+     * Every {@link OSSArchiverConfiguration#getReconcileInterval()} hours, deletes the build folders of deleted
+     * builds found under the global upload folder of each job in the default target.
+     */
+    @Extension
+    public static class Reconciler extends AsyncPeriodicWork {
+        private long lastRun;
+
+        public Reconciler() {
+            super("OSSArchiver cleanup reconciler");
+        }
+
+        @Override
+        public long getRecurrencePeriod() {
+            return HOUR;
+        }
+
+        @Override
+        protected void execute(TaskListener listener) throws InterruptedException {
+            OSSArchiverConfiguration configuration = OSSArchiverConfiguration.get();
+            int interval = configuration.getReconcileInterval();
+            if (interval <= 0 || System.currentTimeMillis() - lastRun < TimeUnit.HOURS.toMillis(interval) - HOUR / 2
+                    || StringUtils.isEmpty(configuration.getBucket()) || StringUtils.isEmpty(configuration.getEndPoint())) {
+                return;
+            }
+            lastRun = System.currentTimeMillis();
+            String uploadFolder = configuration.getUploadFolderOrDefault();
+            if (getBuildsFolder(uploadFolder, "job") == null) {
+                listener.getLogger().println("Upload folder " + uploadFolder + " has no folder per build, nothing to reconcile");
+                return;
+            }
+            int deleted = 0;
+            for (Job<?, ?> job : Jenkins.get().allItems(Job.class)) {
+                String buildsFolder = getBuildsFolder(uploadFolder, job.getFullName());
+                if (buildsFolder == null) {
+                    continue;
+                }
+                OSSClientSettings settings = createClientSettings(configuration, configuration.getDefaultTarget(), job);
+                if (settings == null) {
+                    continue;
+                }
+                try (OSSClientCache.Lease lease = OSSClientCache.acquire(settings)) {
+                    deleted += reconcile(lease.getClient(), configuration.getBucket(), job, buildsFolder);
+                } catch (OSSException | ClientException e) {
+                    listener.getLogger().println("Failed to reconcile " + job.getFullName() + ": " + e);
+                }
+            }
+            listener.getLogger().println("Deleted " + deleted + " objects of deleted builds");
+        }
+
+        /**
+         * @return number of objects deleted
+         */
+        private int reconcile(OSSClient ossClient, String bucket, Job<?, ?> job, String buildsFolder) throws InterruptedException {
+            ListObjectsRequest request = new ListObjectsRequest(bucket);
+            request.setPrefix(buildsFolder);
+            request.setDelimiter("/");
+            request.setMaxKeys(LIST_PAGE_SIZE);
+            int deleted = 0;
+            ObjectListing listing;
+            do {
+                listing = ossClient.listObjects(request);
+                for (String prefix : listing.getCommonPrefixes()) {
+                    String folder = prefix.substring(buildsFolder.length(), prefix.length() - 1);
+                    if (isDeletedBuild(job, folder)) {
+                        deleted += deletePrefix(ossClient, bucket, prefix);
+                    }
+                }
+                request.setMarker(listing.getNextMarker());
+            } while (listing.isTruncated());
+            return deleted;
+        }
+
+        private int deletePrefix(OSSClient ossClient, String bucket, String prefix) throws InterruptedException {
+            ListObjectsRequest request = new ListObjectsRequest(bucket);
+            request.setPrefix(prefix);
+            request.setMaxKeys(LIST_PAGE_SIZE);
+            int deleted = 0;
+            ObjectListing listing;
+            do {
+                listing = ossClient.listObjects(request);
+                List<String> keys = new ArrayList<>(listing.getObjectSummaries().size());
+                for (OSSObjectSummary summary : listing.getObjectSummaries()) {
+                    keys.add(summary.getKey());
+                }
+                // Deleted keys drop out of the listing, but the marker still moves past them
+                delete(ossClient, bucket, keys);
+                deleted += keys.size();
+                request.setMarker(listing.getNextMarker());
+            } while (listing.isTruncated());
+            return deleted;
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package io.jenkins.plugins.ossarchiver;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The objects of one publish in a compact form, stored gzipped in the build folder instead of in build.xml.
+ * <p>
+ * URLs are not stored: the base URL, including the key prefix all objects share, is kept once and every entry only
+ * holds the rest of its key, its size and ETag. The file is one tab separated line per folder or entry.
+ */
+public class ArtifactList {
+    private static final String HEADER = "oss-archiver-artifacts\t1";
+
+    private final String origin;
+    private final String prefix;
+    private final List<String> folders;
+    private final List<Entry> entries;
+
+    private ArtifactList(String origin, String prefix, List<String> folders, List<Entry> entries) {
+        this.origin = origin;
+        this.prefix = prefix;
+        this.folders = folders;
+        this.entries = entries;
+    }
+
+    public static ArtifactList of(UploadReport report) {
+        String origin = null;
+        String prefix = null;
+        for (List<UploadResult> items : report.getFolders().values()) {
+            for (UploadResult item : items) {
+                if (origin == null) {
+                    origin = item.getUrl().substring(0, item.getUrl().length() - item.getKey().length());
+                    prefix = item.getKey().substring(0, item.getKey().lastIndexOf('/') + 1);
+                } else {
+                    prefix = commonFolder(prefix, item.getKey());
+                }
+            }
+        }
+        if (origin == null) {
+            return new ArtifactList("", "", Collections.emptyList(), Collections.emptyList());
+        }
+        List<String> folders = new ArrayList<>(report.getFolders().size());
+        List<Entry> entries = new ArrayList<>();
+        for (Map.Entry<String, List<UploadResult>> folder : report.getFolders().entrySet()) {
+            String name = folder.getKey();
+            folders.add(name);
+            for (UploadResult item : folder.getValue()) {
+                String key = item.getKey().substring(prefix.length());
+                entries.add(new Entry(entries.size(), name, item.getFile(), key, item.getSize(), item.getETag(),
+                        item.getMd5(), item.getCrc64()));
+                if (item.getEntriesUrl() != null) {
+                    entries.add(new Entry(entries.size(), name, item.getFile() + OSSUploader.ENTRIES_SUFFIX,
+                            key + OSSUploader.ENTRIES_SUFFIX, -1, null, null, null));
+                }
+            }
+        }
+        return new ArtifactList(origin, prefix, folders, entries);
+    }
+
+    /**
+     * Converts the folder to (file, URL) map builds of older versions kept in build.xml.
+     */
+    public static ArtifactList fromLegacy(Map<String, List<Pair<String, String>>> result) {
+        List<String> folders = new ArrayList<>(result.keySet());
+        List<Entry> entries = new ArrayList<>();
+        for (Map.Entry<String, List<Pair<String, String>>> folder : result.entrySet()) {
+            for (Pair<String, String> item : folder.getValue()) {
+                entries.add(new Entry(entries.size(), folder.getKey(), item.getLeft(), item.getRight(), -1, null, null, null));
+            }
+        }
+        // Keys are unknown, the whole URL is kept as the key
+        return new ArtifactList("", "", folders, entries);
+    }
+
+    private static String commonFolder(String prefix, String key) {
+        int length = Math.min(prefix.length(), key.length());
+        int i = 0;
+        while (i < length && prefix.charAt(i) == key.charAt(i)) {
+            i++;
+        }
+        return prefix.substring(0, prefix.lastIndexOf('/', i - 1) + 1);
+    }
+
+    public List<String> getFolders() {
+        return folders;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public String getUrl(Entry entry) {
+        return origin + prefix + entry.getKey();
+    }
+
+    /**
+     * @return the bucket of the objects, taken from the virtual hosted origin, or null for lists of older versions
+     */
+    public String getBucket() {
+        return getBucket(origin);
+    }
+
+    /**
+     * @return the bucket of a virtual hosted object URL, or null when it is not one
+     */
+    static String getBucket(String url) {
+        int start = url.indexOf("://");
+        int end = url.indexOf('.', start + 3);
+        return start >= 0 && end > start ? url.substring(start + 3, end) : null;
+    }
+
+    /**
+     * @return the object key of an object URL, keys are not encoded in the URLs of this plugin
+     */
+    static String getKey(String url) {
+        int path = url.indexOf('/', url.indexOf("://") + 3);
+        return path >= 0 ? url.substring(path + 1) : "";
+    }
+
+    /**
+     * @return the full object key of {@code entry}, or null for lists of older versions
+     */
+    public String getObjectKey(Entry entry) {
+        return origin.isEmpty() ? null : prefix + entry.getKey();
+    }
+
+    /**
+     * @return the entry at {@code index}, or null when there is none
+     */
+    public Entry get(int index) {
+        return index >= 0 && index < entries.size() ? entries.get(index) : null;
+    }
+
+    /**
+     * @param filter case insensitive part of the folder or file name, blank for all entries
+     */
+    public List<Entry> filter(String filter) {
+        if (filter == null || filter.trim().isEmpty()) {
+            return entries;
+        }
+        String needle = filter.trim().toLowerCase(Locale.ROOT);
+        List<Entry> result = new ArrayList<>();
+        for (Entry entry : entries) {
+            if (entry.getFile().toLowerCase(Locale.ROOT).contains(needle) || entry.getFolder().toLowerCase(Locale.ROOT).contains(needle)) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    public void save(File file) throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(temp)), StandardCharsets.UTF_8))) {
+            writer.write(HEADER);
+            writer.write('\n');
+            writeLine(writer, "B", origin + prefix);
+            String folder = null;
+            for (Entry entry : entries) {
+                if (!entry.getFolder().equals(folder)) {
+                    folder = entry.getFolder();
+                    writeLine(writer, "F", folder);
+                }
+                writeLine(writer, "E", entry.getFile(), entry.getKey(), String.valueOf(entry.getSize()),
+                        entry.getETag() != null ? entry.getETag() : "", entry.getMd5() != null ? entry.getMd5() : "",
+                        entry.getCrc64() != null ? entry.getCrc64() : "");
+            }
+            // Folders without entries, such as those of failed uploads
+            for (String name : folders) {
+                writeLine(writer, "D", name);
+            }
+        }
+        if (file.exists() && !file.delete() || !temp.renameTo(file)) {
+            throw new IOException("Failed to replace " + file);
+        }
+    }
+
+    public static ArtifactList load(File file) throws IOException {
+        String origin = "";
+        String prefix = "";
+        List<String> folders = new ArrayList<>();
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8))) {
+            if (!HEADER.equals(reader.readLine())) {
+                throw new IOException("Unsupported format: " + file);
+            }
+            String folder = "";
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                String[] fields = line.split("\t", -1);
+                switch (fields[0]) {
+                    case "B":
+                        String baseUrl = unescape(fields[1]);
+                        // The path of the base URL is the key prefix
+                        prefix = getKey(baseUrl);
+                        origin = baseUrl.substring(0, baseUrl.length() - prefix.length());
+                        break;
+                    case "F":
+                        folder = unescape(fields[1]);
+                        break;
+                    case "E":
+                        // Checksums were added later, lists without them are still read
+                        entries.add(new Entry(entries.size(), folder, unescape(fields[1]), unescape(fields[2]), Long.parseLong(fields[3]),
+                                optionalField(fields, 4), optionalField(fields, 5), optionalField(fields, 6)));
+                        break;
+                    case "D":
+                        folders.add(unescape(fields[1]));
+                        break;
+                    default:
+                        // Written by a newer version, skip
+                        break;
+                }
+            }
+        }
+        return new ArtifactList(origin, prefix, folders, entries);
+    }
+
+    private static void writeLine(Writer writer, String type, String... fields) throws IOException {
+        writer.write(type);
+        for (String field : fields) {
+            writer.write('\t');
+            writer.write(escape(field));
+        }
+        writer.write('\n');
+    }
+
+    private static String escape(String value) {
+        StringBuilder sb = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String replacement = c == '\\' ? "\\\\" : c == '\t' ? "\\t" : c == '\n' ? "\\n" : c == '\r' ? "\\r" : null;
+            if (replacement != null && sb == null) {
+                sb = new StringBuilder(value.length() + 8).append(value, 0, i);
+            }
+            if (sb != null) {
+                if (replacement != null) {
+                    sb.append(replacement);
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        return sb != null ? sb.toString() : value;
+    }
+
+    private static String optionalField(String[] fields, int index) {
+        return index < fields.length && !fields[index].isEmpty() ? unescape(fields[index]) : null;
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    @ExportedBean(defaultVisibility = 3)
+    public static class Entry {
+        private final int index;
+        private final String folder;
+        private final String file;
+        private final String key;
+        private final long size;
+        private final String eTag;
+        private final String md5;
+        private final String crc64;
+
+        Entry(int index, String folder, String file, String key, long size, String eTag, String md5, String crc64) {
+            this.index = index;
+            this.folder = folder;
+            this.file = file;
+            this.key = key;
+            this.size = size;
+            this.eTag = eTag;
+            this.md5 = md5;
+            this.crc64 = crc64;
+        }
+
+        /**
+         * @return position in the list
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        @Exported
+        public String getFolder() {
+            return folder;
+        }
+
+        @Exported
+        public String getFile() {
+            return file;
+        }
+
+        /**
+         * @return key relative to the base URL of the list
+         */
+        @Exported
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return size in bytes, -1 when not known
+         */
+        @Exported
+        public long getSize() {
+            return size;
+        }
+
+        @Exported
+        public String getETag() {
+            return eTag;
+        }
+
+        /**
+         * @return hex MD5 of the verified content, null when not known
+         */
+        @Exported
+        public String getMd5() {
+            return md5;
+        }
+
+        /**
+         * @return unsigned decimal CRC64 of the verified content, null when not known
+         */
+        @Exported
+        public String getCrc64() {
+            return crc64;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package io.jenkins.plugins.ossarchiver;
+
+import hudson.FilePath;
+import hudson.remoting.Channel;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+import org.apache.commons.lang.StringUtils;
+import org.apache.tools.ant.DirectoryScanner;
+import org.apache.tools.ant.types.selectors.SelectorUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Yields the files of a folder matching Ant style includes and excludes, one at a time.
+ * <p>
+ * When the folder is local, as it is when uploading from the agent, the tree is walked lazily: only the names of
+ * the directories on the current path are held, directories no include can match are not entered, and the first
+ * match is available as soon as it is found. A remote folder is walked the same way on the node owning it, which
+ * hands the matches out {@link #REMOTE_BATCH_SIZE} per round trip, so the controller never holds the whole list.
+ */
+public abstract class ArtifactWalker {
+    private static final int REMOTE_BATCH_SIZE = 256;
+
+    /**
+     * @return the next matching file, or null when there are no more
+     */
+    public abstract FilePath next() throws IOException, InterruptedException;
+
+    public static ArtifactWalker open(FilePath dir, String includes, String excludes, boolean defaultExcludes) throws IOException, InterruptedException {
+        if (StringUtils.isBlank(includes)) {
+            includes = "**";
+        }
+        if (dir.isRemote()) {
+            return new RemoteWalker(dir, dir.act(new OpenCallable(includes, excludes, defaultExcludes)));
+        }
+        return openLocal(new File(dir.getRemote()), includes, excludes, defaultExcludes);
+    }
+
+    private static LocalWalker openLocal(File dir, String includes, String excludes, boolean defaultExcludes) throws IOException {
+        List<String> excludePatterns = new ArrayList<>(splitPatterns(excludes));
+        if (defaultExcludes) {
+            for (String pattern : DirectoryScanner.getDefaultExcludes()) {
+                excludePatterns.add(normalizePattern(pattern));
+            }
+        }
+        return new LocalWalker(dir, splitPatterns(includes), excludePatterns);
+    }
+
+    /**
+     * @return a walker yielding {@code first} and then the files of {@code rest}
+     */
+    public static ArtifactWalker prepend(FilePath first, ArtifactWalker rest) {
+        return new ArtifactWalker() {
+            private FilePath head = first;
+
+            @Override
+            public FilePath next() throws IOException, InterruptedException {
+                if (head != null) {
+                    FilePath file = head;
+                    head = null;
+                    return file;
+                }
+                return rest.next();
+            }
+        };
+    }
+
+    private static List<String> splitPatterns(String patterns) {
+        List<String> result = new ArrayList<>();
+        if (StringUtils.isBlank(patterns)) {
+            return result;
+        }
+        // Like Util.createFileSet, only commas separate patterns, so names with spaces can be matched
+        for (String pattern : patterns.split(",")) {
+            String trimmed = pattern.trim();
+            if (!trimmed.isEmpty()) {
+                result.add(normalizePattern(trimmed));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Same normalization as {@link DirectoryScanner}: a trailing separator matches everything below it.
+     */
+    private static String normalizePattern(String pattern) {
+        String normalized = pattern.replace('\\', '/');
+        if (normalized.endsWith("/")) {
+            normalized += "**";
+        }
+        return normalized.replace('/', File.separatorChar);
+    }
+
+    /**
+     * Matches of a walk running on another node, exported over its channel.
+     */
+    public interface Batches {
+        /**
+         * @return paths of up to {@code max} more matching files, empty when there are no more
+         */
+        List<String> next(int max) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Starts walking a folder on its node and returns the exported {@link Batches} of it.
+     */
+    private static class OpenCallable extends MasterToSlaveFileCallable<Batches> {
+        private static final long serialVersionUID = 1L;
+
+        private final String includes;
+        private final String excludes;
+        private final boolean defaultExcludes;
+
+        OpenCallable(String includes, String excludes, boolean defaultExcludes) {
+            this.includes = includes;
+            this.excludes = excludes;
+            this.defaultExcludes = defaultExcludes;
+        }
+
+        @Override
+        public Batches invoke(File dir, VirtualChannel channel) throws IOException {
+            LocalWalker walker = openLocal(dir, includes, excludes, defaultExcludes);
+            // Unexported once the proxy on the controller is garbage collected
+            return Channel.currentOrFail().export(Batches.class, max -> {
+                List<String> paths = new ArrayList<>(max);
+                for (FilePath file = walker.next(); file != null; file = walker.next()) {
+                    paths.add(file.getRemote());
+                    if (paths.size() >= max) {
+                        break;
+                    }
+                }
+                return paths;
+            });
+        }
+    }
+
+    private static class RemoteWalker extends ArtifactWalker {
+        private final VirtualChannel channel;
+        private final Batches batches;
+        private Iterator<String> batch = Collections.emptyIterator();
+        private boolean finished;
+
+        RemoteWalker(FilePath dir, Batches batches) {
+            this.channel = dir.getChannel();
+            this.batches = batches;
+        }
+
+        @Override
+        public FilePath next() throws IOException, InterruptedException {
+            if (!batch.hasNext() && !finished) {
+                List<String> paths = batches.next(REMOTE_BATCH_SIZE);
+                finished = paths.isEmpty();
+                batch = paths.iterator();
+            }
+            return batch.hasNext() ? new FilePath(channel, batch.next()) : null;
+        }
+    }
+
+    private static class LocalWalker extends ArtifactWalker {
+        private final List<String> includes;
+        private final List<String> excludes;
+        private final Deque<Level> stack = new ArrayDeque<>();
+
+        LocalWalker(File root, List<String> includes, List<String> excludes) throws IOException {
+            this.includes = includes;
+            this.excludes = excludes;
+            push(root, "");
+        }
+
+        @Override
+        public FilePath next() throws IOException {
+            while (!stack.isEmpty()) {
+                Level level = stack.peek();
+                if (level.index >= level.names.length) {
+                    stack.pop();
+                    continue;
+                }
+                String name = level.names[level.index++];
+                File file = new File(level.dir, name);
+                String path = level.path + name;
+                if (file.isDirectory()) {
+                    if (couldMatchBelow(path) && !isExcludedDirectory(path)) {
+                        push(file, path + File.separator);
+                    }
+                } else if (matches(path)) {
+                    return new FilePath(file);
+                }
+            }
+            return null;
+        }
+
+        private void push(File dir, String path) throws IOException {
+            String canonicalPath = dir.getCanonicalPath();
+            for (Level level : stack) {
+                // Symbolic link back to a directory being walked
+                if (level.canonicalPath.equals(canonicalPath)) {
+                    return;
+                }
+            }
+            String[] names = dir.list();
+            if (names == null) {
+                return;
+            }
+            Arrays.sort(names);
+            stack.push(new Level(dir, path, canonicalPath, names));
+        }
+
+        private boolean matches(String path) {
+            boolean included = false;
+            for (String include : includes) {
+                if (SelectorUtils.matchPath(include, path)) {
+                    included = true;
+                    break;
+                }
+            }
+            if (!included) {
+                return false;
+            }
+            for (String exclude : excludes) {
+                if (SelectorUtils.matchPath(exclude, path)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean couldMatchBelow(String path) {
+            for (String include : includes) {
+                if (SelectorUtils.matchPatternStart(include, path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isExcludedDirectory(String path) {
+            for (String exclude : excludes) {
+                if (exclude.endsWith(File.separator + "**") && SelectorUtils.matchPath(exclude, path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class Level {
+        private final File dir;
+        private final String path;
+        private final String canonicalPath;
+        private final String[] names;
+        private int index;
+
+        Level(File dir, String path, String canonicalPath, String[] names) {
+            this.dir = dir;
+            this.path = path;
+            this.canonicalPath = canonicalPath;
+            this.names = names;
+        }
+    }
+}
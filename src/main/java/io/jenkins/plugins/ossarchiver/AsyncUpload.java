@@ -0,0 +1,72 @@
+package io.jenkins.plugins.ossarchiver;
+
+import java.util.List;
+
+/**
+ * A publish handed off to {@link AsyncUploadQueue}, persisted until its upload finished.
+ * <p>
+ * Holds no secrets: credentials are looked up again from the build when the upload runs.
+ */
+public class AsyncUpload {
+    private final String id;
+    private final String runId;
+    private final String nodeName;
+    private final String stagingDir;
+    private final String uploadFolder;
+    private final String targetName;
+    private final OSSArchiverPublisher publisher;
+    private final List<OSSArchiverPublisher.ArtifactConfig> stagedArtifacts;
+
+    public AsyncUpload(String id, String runId, String nodeName, String stagingDir, String uploadFolder, String targetName,
+                       OSSArchiverPublisher publisher, List<OSSArchiverPublisher.ArtifactConfig> stagedArtifacts) {
+        this.id = id;
+        this.runId = runId;
+        this.nodeName = nodeName;
+        this.stagingDir = stagingDir;
+        this.uploadFolder = uploadFolder;
+        this.targetName = targetName;
+        this.publisher = publisher;
+        this.stagedArtifacts = stagedArtifacts;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @see hudson.model.Run#getExternalizableId()
+     */
+    public String getRunId() {
+        return runId;
+    }
+
+    /**
+     * @return name of the node holding the staged files, empty for the built-in node
+     */
+    public String getNodeName() {
+        return nodeName;
+    }
+
+    public String getStagingDir() {
+        return stagingDir;
+    }
+
+    public String getUploadFolder() {
+        return uploadFolder;
+    }
+
+    /**
+     * @return name of the {@link OSSTarget} picked when the files were staged, null for the default target
+     */
+    public String getTargetName() {
+        return targetName;
+    }
+
+    public OSSArchiverPublisher getPublisher() {
+        return publisher;
+    }
+
+    public List<OSSArchiverPublisher.ArtifactConfig> getStagedArtifacts() {
+        return stagedArtifacts;
+    }
+}
@@ -0,0 +1,248 @@
+package io.jenkins.plugins.ossarchiver;
+
+import hudson.FilePath;
+import hudson.XmlFile;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.init.Terminator;
+import hudson.model.Node;
+import hudson.model.Run;
+import hudson.slaves.WorkspaceList;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import hudson.util.StreamTaskListener;
+import jenkins.model.Jenkins;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the uploads of asynchronous publishes on the controller after their build moved on.
+ * <p>
+ * Every queued {@link AsyncUpload} is saved to {@code JENKINS_HOME/oss-archiver-async} and deleted once finished,
+ * so uploads interrupted by a restart are queued again on startup and resume from their multipart checkpoints.
+ * Uploads of a node that is offline are retried every {@link #OFFLINE_RETRY_DELAY}. A saved upload that cannot be
+ * read is moved aside, and its action is marked failed when a build waits for it.
+ */
+public final class AsyncUploadQueue {
+    public static final String STAGING_FOLDER = "oss-archiver-staging";
+    private static final Logger LOGGER = Logger.getLogger(AsyncUploadQueue.class.getName());
+    private static final String QUEUE_FOLDER = "oss-archiver-async";
+    private static final int THREADS = 2;
+    private static final long OFFLINE_RETRY_DELAY = TimeUnit.MINUTES.toMillis(1);
+
+    private static final ScheduledExecutorService EXECUTOR = Executors.newScheduledThreadPool(THREADS,
+            new NamingThreadFactory(new DaemonThreadFactory(), "OSSArchiver async upload"));
+    // Callbacks waiting for the asynchronous uploads of a run to finish, by run id
+    private static final Map<String, List<Runnable>> WAITERS = new HashMap<>();
+    // Ids of the uploads queued since startup, guarded by WAITERS
+    private static final Set<String> QUEUED = new HashSet<>();
+
+    private AsyncUploadQueue() {
+    }
+
+    public static void submit(AsyncUpload upload) throws IOException {
+        getFile(upload.getId()).write(upload);
+        queue(upload);
+    }
+
+    @Initializer(after = InitMilestone.JOB_LOADED)
+    public static void resume() {
+        File[] files = getQueueDir().listFiles((dir, name) -> name.endsWith(".xml"));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            try {
+                AsyncUpload upload = (AsyncUpload) new XmlFile(Jenkins.XSTREAM2, file).read();
+                LOGGER.log(Level.INFO, "Resuming asynchronous upload {0}", upload.getId());
+                queue(upload);
+            } catch (IOException | ClassCastException e) {
+                // Not loaded again on every start, its action is failed by whenFinished
+                File failed = new File(file.getPath() + ".failed");
+                LOGGER.log(Level.WARNING, "Failed to load asynchronous upload " + file + ", moving it to " + failed, e);
+                if (!file.renameTo(failed)) {
+                    LOGGER.log(Level.WARNING, "Failed to move {0}", file);
+                }
+            }
+        }
+    }
+
+    private static void queue(AsyncUpload upload) {
+        synchronized (WAITERS) {
+            QUEUED.add(upload.getId());
+        }
+        EXECUTOR.execute(() -> process(upload));
+    }
+
+    @Terminator
+    public static void shutdown() {
+        // Unfinished uploads stay saved and are resumed on the next start
+        EXECUTOR.shutdownNow();
+    }
+
+    /**
+     * Calls {@code callback} once the next asynchronous upload of {@code run} finished, unless none is pending.
+     * Unfinished actions whose upload is not queued, because it could not be loaded, are marked failed.
+     *
+     * @return whether the callback was registered
+     */
+    public static boolean whenFinished(Run<?, ?> run, Runnable callback) {
+        boolean orphaned = false;
+        try {
+            synchronized (WAITERS) {
+                for (OSSArchiverAction action : run.getActions(OSSArchiverAction.class)) {
+                    if (action.isFinished()) {
+                        continue;
+                    }
+                    if (action.getAsyncId() != null && !QUEUED.contains(action.getAsyncId())) {
+                        LOGGER.log(Level.WARNING, "Asynchronous upload {0} of {1} is not queued, marking it failed",
+                                new Object[]{action.getAsyncId(), run});
+                        action.setStatus(OSSArchiverAction.Status.FAILED);
+                        orphaned = true;
+                        continue;
+                    }
+                    WAITERS.computeIfAbsent(run.getExternalizableId(), k -> new ArrayList<>()).add(callback);
+                    return true;
+                }
+                return false;
+            }
+        } finally {
+            if (orphaned) {
+                saveQuietly(run);
+            }
+        }
+    }
+
+    private static void process(AsyncUpload upload) {
+        Run<?, ?> run = Run.fromExternalizableId(upload.getRunId());
+        OSSArchiverAction action = run != null ? findAction(run, upload.getId()) : null;
+        if (action == null) {
+            LOGGER.log(Level.WARNING, "Build of asynchronous upload {0} is gone, dropping it", upload.getId());
+            delete(upload, getStagingDir(upload));
+            return;
+        }
+        FilePath stagingDir = getStagingDir(upload);
+        if (stagingDir == null) {
+            Node node = getNode(upload);
+            if (node != null) {
+                // Offline for now, keep it pending
+                EXECUTOR.schedule(() -> process(upload), OFFLINE_RETRY_DELAY, TimeUnit.MILLISECONDS);
+                return;
+            }
+            finish(run, action, OSSArchiverAction.Status.FAILED);
+            LOGGER.log(Level.WARNING, "Node {0} of asynchronous upload {1} was removed", new Object[]{upload.getNodeName(), upload.getId()});
+            delete(upload, null);
+            return;
+        }
+        action.setStatus(OSSArchiverAction.Status.IN_PROGRESS);
+        saveQuietly(run);
+        OSSArchiverAction.Status status;
+        try (StreamTaskListener listener = new StreamTaskListener(action.getLogFile(), true, null)) {
+            OSSArchiverLogger logger = new OSSArchiverLogger(listener);
+            try {
+                OSSArchiverConfiguration configuration = OSSArchiverConfiguration.get();
+                UploadReport report = upload.getPublisher().publish(configuration, configuration.getTarget(upload.getTargetName()),
+                        run, stagingDir, upload.getStagedArtifacts(), true, upload.getUploadFolder(), action, logger, listener);
+                int failed = report.getFailureCount();
+                if (failed > 0) {
+                    logger.error(failed + " files failed to upload " + report.getFailures());
+                }
+                status = failed > 0 ? OSSArchiverAction.Status.FAILED : OSSArchiverAction.Status.DONE;
+            } catch (InterruptedException e) {
+                // Shutting down, resumed on the next start
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Publish exception", e);
+                status = OSSArchiverAction.Status.FAILED;
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write the log of asynchronous upload " + upload.getId(), e);
+            status = OSSArchiverAction.Status.FAILED;
+        }
+        finish(run, action, status);
+        delete(upload, stagingDir);
+    }
+
+    private static void finish(Run<?, ?> run, OSSArchiverAction action, OSSArchiverAction.Status status) {
+        List<Runnable> callbacks;
+        synchronized (WAITERS) {
+            action.setStatus(status);
+            callbacks = WAITERS.remove(run.getExternalizableId());
+        }
+        saveQuietly(run);
+        if (callbacks != null) {
+            for (Runnable callback : callbacks) {
+                callback.run();
+            }
+        }
+    }
+
+    private static OSSArchiverAction findAction(Run<?, ?> run, String id) {
+        for (OSSArchiverAction action : run.getActions(OSSArchiverAction.class)) {
+            if (id.equals(action.getAsyncId())) {
+                return action;
+            }
+        }
+        return null;
+    }
+
+    private static Node getNode(AsyncUpload upload) {
+        Jenkins jenkins = Jenkins.get();
+        return upload.getNodeName().isEmpty() ? jenkins : jenkins.getNode(upload.getNodeName());
+    }
+
+    /**
+     * @return the staging folder, or null while its node is offline or after it was removed
+     */
+    private static FilePath getStagingDir(AsyncUpload upload) {
+        Node node = getNode(upload);
+        return node != null ? node.createPath(upload.getStagingDir()) : null;
+    }
+
+    private static void delete(AsyncUpload upload, FilePath stagingDir) {
+        if (stagingDir != null) {
+            try {
+                stagingDir.deleteRecursive();
+                FilePath tempDir = WorkspaceList.tempDir(stagingDir);
+                if (tempDir != null) {
+                    tempDir.deleteRecursive();
+                }
+            } catch (IOException | InterruptedException e) {
+                LOGGER.log(Level.WARNING, "Failed to delete staging folder " + stagingDir, e);
+            }
+        }
+        getFile(upload.getId()).delete();
+        synchronized (WAITERS) {
+            QUEUED.remove(upload.getId());
+        }
+    }
+
+    private static void saveQuietly(Run<?, ?> run) {
+        try {
+            run.save();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save " + run, e);
+        }
+    }
+
+    private static File getQueueDir() {
+        return new File(Jenkins.get().getRootDir(), QUEUE_FOLDER);
+    }
+
+    private static XmlFile getFile(String id) {
+        return new XmlFile(Jenkins.XSTREAM2, new File(getQueueDir(), id + ".xml"));
+    }
+}
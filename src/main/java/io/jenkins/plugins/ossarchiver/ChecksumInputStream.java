@@ -0,0 +1,121 @@
+package io.jenkins.plugins.ossarchiver;
+
+import com.aliyun.oss.common.utils.CRC64;
+import hudson.Util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Computes the MD5 and CRC64 of the bytes read through it, so checksums are taken in the same pass as the upload.
+ * <p>
+ * Mark and reset are not passed on, a request that has to resend the stream must open it again.
+ */
+public class ChecksumInputStream extends FilterInputStream {
+    private final MessageDigest md5;
+    private final CRC64 crc64 = new CRC64();
+    private final AtomicLong time;
+    private String md5Hex;
+
+    /**
+     * @param time nanoseconds spent computing checksums are added to it
+     */
+    public ChecksumInputStream(InputStream in, AtomicLong time) {
+        super(in);
+        try {
+            this.md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        this.time = time;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            long start = System.nanoTime();
+            md5.update((byte) b);
+            crc64.update(b);
+            time.addAndGet(System.nanoTime() - start);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            long start = System.nanoTime();
+            md5.update(b, off, n);
+            crc64.update(b, off, n);
+            time.addAndGet(System.nanoTime() - start);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // Skipped bytes still have to go through the checksums
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * @return hex MD5 of the bytes read, only call once the whole stream was read
+     */
+    public String getMd5() {
+        if (md5Hex == null) {
+            md5Hex = Util.toHexString(md5.digest());
+        }
+        return md5Hex;
+    }
+
+    public long getCrc64() {
+        return crc64.getValue();
+    }
+
+    /**
+     * Compares the checksums with what OSS computed from the bytes it received.
+     *
+     * @param eTag      ETag of a single request upload or of a part, which is the MD5 of the content
+     * @param serverCrc CRC64 OSS returned, null when it did not
+     */
+    public void verify(String description, String eTag, Long serverCrc) throws ChecksumMismatchException {
+        long crc = getCrc64();
+        if (serverCrc != null && serverCrc != crc) {
+            throw new ChecksumMismatchException(String.format("CRC64 mismatch: %s, local %s, OSS %s",
+                    description, Long.toUnsignedString(crc), Long.toUnsignedString(serverCrc)));
+        }
+        String md5 = getMd5();
+        if (eTag != null && !eTag.equalsIgnoreCase(md5)) {
+            throw new ChecksumMismatchException(String.format("MD5 mismatch: %s, local %s, ETag %s", description, md5, eTag));
+        }
+    }
+}
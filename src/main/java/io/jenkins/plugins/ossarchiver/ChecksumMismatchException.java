@@ -0,0 +1,14 @@
+package io.jenkins.plugins.ossarchiver;
+
+import java.io.IOException;
+
+/**
+ * What OSS received differs from what was read, the request is worth repeating.
+ */
+public class ChecksumMismatchException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public ChecksumMismatchException(String message) {
+        super(message);
+    }
+}
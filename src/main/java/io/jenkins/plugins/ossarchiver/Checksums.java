@@ -0,0 +1,78 @@
+package io.jenkins.plugins.ossarchiver;
+
+import com.aliyun.oss.common.utils.CRC64;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the checksums of one uploaded object.
+ * <p>
+ * Only single request uploads get an MD5: parts are sent in parallel, so for multipart uploads the CRC64 of the
+ * object is combined from the CRC64 of its parts instead.
+ */
+public class Checksums {
+    private final AtomicLong time;
+    private final Map<Integer, long[]> parts = new TreeMap<>();
+    private String md5;
+    private Long crc64;
+
+    /**
+     * @param time nanoseconds spent computing checksums are added to it
+     */
+    public Checksums(AtomicLong time) {
+        this.time = time;
+    }
+
+    public ChecksumInputStream wrap(InputStream in) {
+        return new ChecksumInputStream(in, time);
+    }
+
+    public String getMd5() {
+        return md5;
+    }
+
+    public void setMd5(String md5) {
+        this.md5 = md5;
+    }
+
+    /**
+     * @return unsigned decimal CRC64, as OSS shows it, or null when not known
+     */
+    public String getCrc64() {
+        return crc64 != null ? Long.toUnsignedString(crc64) : null;
+    }
+
+    public void setCrc64(long crc64) {
+        this.crc64 = crc64;
+    }
+
+    public synchronized void addPart(int partNumber, long crc64, long length) {
+        parts.put(partNumber, new long[]{crc64, length});
+    }
+
+    public synchronized void removePart(int partNumber) {
+        parts.remove(partNumber);
+    }
+
+    /**
+     * Combines the CRC64 of all parts, checks it against the CRC64 of the completed object and keeps it.
+     *
+     * @param serverCrc CRC64 OSS returned for the object, null when it did not
+     */
+    public synchronized void completeParts(String key, Long serverCrc) throws ChecksumMismatchException {
+        long crc = 0;
+        boolean first = true;
+        for (long[] part : parts.values()) {
+            crc = first ? part[0] : CRC64.combine(crc, part[0], part[1]);
+            first = false;
+        }
+        if (serverCrc != null && serverCrc != crc) {
+            throw new ChecksumMismatchException(String.format("CRC64 mismatch: %s, local %s, OSS %s",
+                    key, Long.toUnsignedString(crc), Long.toUnsignedString(serverCrc)));
+        }
+        this.crc64 = crc;
+    }
+}
@@ -0,0 +1,91 @@
+package io.jenkins.plugins.ossarchiver;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops every build in this JVM from sending requests to an endpoint that keeps failing.
+ * <p>
+ * After {@link #FAILURE_THRESHOLD} retryable failures in a row the circuit opens and requests fail immediately for
+ * {@link #OPEN_TIME}. Afterwards requests go through again, the first success closes the circuit while another
+ * failure opens it right away. Breakers of endpoints no request went to for {@link #IDLE_TIME} are dropped, a new
+ * one starts closed again.
+ * <p>
+ * Breakers live in the JVM the requests are sent from, so when uploading from agents every agent has its own.
+ */
+public final class CircuitBreaker {
+    private static final int FAILURE_THRESHOLD = 20;
+    private static final long OPEN_TIME = TimeUnit.SECONDS.toMillis(30);
+    static final long IDLE_TIME = TimeUnit.MINUTES.toMillis(10);
+
+    private static final Map<String, CircuitBreaker> BREAKERS = new HashMap<>();
+
+    private final String name;
+    private final LongSupplier clock;
+    private int failures;
+    private long openUntil;
+    private long lastUsed;
+
+    /**
+     * @param clock current time in milliseconds, like {@link System#currentTimeMillis()}
+     */
+    CircuitBreaker(String name, LongSupplier clock) {
+        this.name = name;
+        this.clock = clock;
+        this.lastUsed = clock.getAsLong();
+    }
+
+    public static CircuitBreaker of(String endPoint, String bucket) {
+        String name = endPoint + "/" + bucket;
+        synchronized (BREAKERS) {
+            evictIdle(System.currentTimeMillis());
+            return BREAKERS.computeIfAbsent(name, k -> new CircuitBreaker(k, System::currentTimeMillis));
+        }
+    }
+
+    /**
+     * Drops the breakers that are not open and were not used since {@code now - IDLE_TIME}.
+     */
+    static void evictIdle(long now) {
+        synchronized (BREAKERS) {
+            BREAKERS.values().removeIf(breaker -> breaker.isIdle(now));
+        }
+    }
+
+    synchronized boolean isIdle(long now) {
+        return openUntil <= now && now - lastUsed >= IDLE_TIME;
+    }
+
+    public synchronized void check() throws OpenException {
+        long now = clock.getAsLong();
+        lastUsed = now;
+        long remaining = openUntil - now;
+        if (remaining > 0) {
+            throw new OpenException("Too many failures talking to " + name + ", requests paused for another "
+                    + TimeUnit.MILLISECONDS.toSeconds(remaining) + "s");
+        }
+    }
+
+    public synchronized void onSuccess() {
+        failures = 0;
+        openUntil = 0;
+    }
+
+    public synchronized void onFailure() {
+        failures++;
+        if (failures >= FAILURE_THRESHOLD) {
+            openUntil = clock.getAsLong() + OPEN_TIME;
+        }
+    }
+
+    public static class OpenException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        OpenException(String message) {
+            super(message);
+        }
+    }
+}
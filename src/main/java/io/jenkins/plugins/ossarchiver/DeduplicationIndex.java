@@ -0,0 +1,100 @@
+package io.jenkins.plugins.ossarchiver;
+
+import hudson.FilePath;
+import hudson.Util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which object already holds the content with a given MD5, so a deduplicated upload can copy it
+ * server side without a HEAD request per file.
+ * <p>
+ * Entries also record the ETag the object had, copies are made with a matching ETag constraint and a stale
+ * entry is simply dropped when OSS rejects the copy.
+ */
+public class DeduplicationIndex {
+    private final FilePath indexFile;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    private DeduplicationIndex(FilePath indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    public static DeduplicationIndex load(FilePath dir, String endPoint, String bucket) throws IOException, InterruptedException {
+        DeduplicationIndex index = new DeduplicationIndex(dir.child("dedup-" + Util.getDigestOf(endPoint + "/" + bucket) + ".properties"));
+        if (index.indexFile.exists()) {
+            Properties properties = new Properties();
+            try (InputStream inputStream = index.indexFile.read()) {
+                properties.load(inputStream);
+            }
+            for (String md5 : properties.stringPropertyNames()) {
+                // size:etag:key, the key goes last because it may contain colons
+                String[] values = properties.getProperty(md5).split(":", 3);
+                if (values.length == 3) {
+                    index.entries.put(md5, new Entry(Long.parseLong(values[0]), values[1], values[2]));
+                }
+            }
+        }
+        return index;
+    }
+
+    public Entry get(String md5, long size) {
+        Entry entry = entries.get(md5);
+        return entry != null && entry.size == size ? entry : null;
+    }
+
+    public void put(String md5, long size, String eTag, String key) {
+        entries.put(md5, new Entry(size, eTag, key));
+        dirty = true;
+    }
+
+    public void remove(String md5) {
+        entries.remove(md5);
+        dirty = true;
+    }
+
+    public void save() throws IOException, InterruptedException {
+        if (!dirty) {
+            return;
+        }
+        Properties properties = new Properties();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            Entry value = entry.getValue();
+            properties.setProperty(entry.getKey(), value.size + ":" + value.eTag + ":" + value.key);
+        }
+        indexFile.getParent().mkdirs();
+        try (OutputStream outputStream = indexFile.write()) {
+            properties.store(outputStream, null);
+        }
+    }
+
+    public static class Entry {
+        private final long size;
+        private final String eTag;
+        private final String key;
+
+        Entry(long size, String eTag, String key) {
+            this.size = size;
+            this.eTag = eTag;
+            this.key = key;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package io.jenkins.plugins.ossarchiver;
+
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.model.*;
+import hudson.FilePath;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Compares the files of a publish against what a fixed upload folder already holds, so only added or changed
+ * files are uploaded.
+ * <p>
+ * The remote side is read from the manifest object written by the previous sync, or from a plain listing when
+ * there is none. Both come sorted by key and are merged with the sorted local files one entry at a time, so the
+ * remote side never has to fit in memory.
+ */
+public class IncrementalSync {
+    public static final String MANIFEST_NAME = ".oss-archiver-manifest";
+    private static final int DELETE_BATCH_SIZE = 1000;
+    private static final int LIST_PAGE_SIZE = 1000;
+
+    /**
+     * OSS lists keys in UTF-8 byte order, which is code point order rather than {@link String#compareTo}.
+     */
+    public static final Comparator<String> KEY_ORDER = (a, b) -> {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    };
+
+    private final OSSClient ossClient;
+    private final Retrier retrier;
+    private final String bucket;
+    private final String prefix;
+    private final boolean deleteOrphans;
+    private final FilePath stateDir;
+    private final OSSArchiverLogger logger;
+    private final Map<String, LocalFile> localFiles = new HashMap<>();
+    private final List<String> orphans = new ArrayList<>(DELETE_BATCH_SIZE);
+    private int deleted;
+
+    /**
+     * @param prefix normalized upload folder, see {@link KeyBuilder#normalize}
+     */
+    public IncrementalSync(OSSClient ossClient, Retrier retrier, String bucket, String prefix, boolean deleteOrphans,
+                           FilePath stateDir, OSSArchiverLogger logger) {
+        // A folder collapsing to nothing or leaving the root would compare, and delete, far more than the publish owns
+        if (prefix.isEmpty() || prefix.equals("/") || prefix.equals(".") || prefix.equals("..") || prefix.startsWith("../")) {
+            throw new IllegalArgumentException("Sync needs a non-empty upload folder: " + prefix);
+        }
+        this.ossClient = ossClient;
+        this.retrier = retrier;
+        this.bucket = bucket;
+        this.prefix = prefix.endsWith("/") ? prefix : prefix + "/";
+        this.deleteOrphans = deleteOrphans;
+        this.stateDir = stateDir;
+        this.logger = logger;
+    }
+
+    /**
+     * @return sizes of the files already uploaded unchanged, by key, every other task has to be uploaded
+     */
+    public Map<String, Long> plan(List<OSSUploader.UploadTask> tasks) throws IOException, InterruptedException {
+        List<OSSUploader.UploadTask> sorted = new ArrayList<>(tasks);
+        sorted.sort(Comparator.comparing(OSSUploader.UploadTask::getKey, KEY_ORDER));
+        Map<String, Long> unchanged = new HashMap<>();
+        try (RemoteEntries remote = openRemote()) {
+            RemoteEntry entry = remote.next();
+            for (OSSUploader.UploadTask task : sorted) {
+                while (entry != null && KEY_ORDER.compare(entry.key, task.getKey()) < 0) {
+                    orphan(entry.key);
+                    entry = remote.next();
+                }
+                if (task.isArchive()) {
+                    // Archives are rebuilt on every publish, there is nothing to compare with
+                    if (entry != null && entry.key.equals(task.getKey())) {
+                        entry = remote.next();
+                    }
+                    continue;
+                }
+                LocalFile local = new LocalFile(task.getFilePath());
+                localFiles.put(task.getKey(), local);
+                if (entry != null && entry.key.equals(task.getKey())) {
+                    if (local.matches(entry)) {
+                        unchanged.put(task.getKey(), local.size);
+                    }
+                    entry = remote.next();
+                }
+            }
+            while (entry != null) {
+                orphan(entry.key);
+                entry = remote.next();
+            }
+        }
+        deleteOrphans();
+        logger.info("Sync: " + (sorted.size() - unchanged.size()) + " changed, " + unchanged.size() + " unchanged, "
+                + deleted + " orphans deleted");
+        return unchanged;
+    }
+
+    /**
+     * Writes the manifest of everything now in the upload folder, files that failed to upload are left out so the
+     * next sync retries them.
+     */
+    public void finish(UploadReport report) throws IOException, InterruptedException {
+        List<String> keys = new ArrayList<>();
+        for (List<UploadResult> items : report.getFolders().values()) {
+            for (UploadResult item : items) {
+                keys.add(item.getKey());
+            }
+        }
+        keys.sort(KEY_ORDER);
+        FilePath manifestFile = stateDir.child(MANIFEST_NAME);
+        stateDir.mkdirs();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(manifestFile.write(), StandardCharsets.UTF_8))) {
+            for (String key : keys) {
+                LocalFile local = localFiles.get(key);
+                if (local == null) {
+                    continue;
+                }
+                // The key goes last because it is the only field that may contain tabs
+                writer.write(local.size + "\t" + local.lastModified + "\t" + (local.md5 != null ? local.md5 : "") + "\t" + key + "\n");
+            }
+        }
+        retrier.call("Upload: " + prefix + MANIFEST_NAME, () -> {
+            try (InputStream inputStream = manifestFile.read()) {
+                return ossClient.putObject(bucket, prefix + MANIFEST_NAME, inputStream);
+            }
+        });
+        manifestFile.delete();
+    }
+
+    private void orphan(String key) throws IOException, InterruptedException {
+        if (!deleteOrphans || key.equals(prefix + MANIFEST_NAME) || key.equals(prefix + OSSUploader.CHECKSUMS_NAME)
+                || key.endsWith(OSSUploader.ENTRIES_SUFFIX)) {
+            return;
+        }
+        orphans.add(key);
+        if (orphans.size() >= DELETE_BATCH_SIZE) {
+            deleteOrphans();
+        }
+    }
+
+    private void deleteOrphans() throws IOException, InterruptedException {
+        if (orphans.isEmpty()) {
+            return;
+        }
+        DeleteObjectsRequest request = new DeleteObjectsRequest(bucket);
+        request.setKeys(new ArrayList<>(orphans));
+        request.setQuiet(true);
+        retrier.call("Delete orphans", () -> ossClient.deleteObjects(request));
+        deleted += orphans.size();
+        orphans.clear();
+    }
+
+    private RemoteEntries openRemote() throws IOException, InterruptedException {
+        String manifestKey = prefix + MANIFEST_NAME;
+        if (retrier.call("Check: " + manifestKey, () -> ossClient.doesObjectExist(bucket, manifestKey))) {
+            return new ManifestEntries(retrier.call("Download: " + manifestKey, () -> ossClient.getObject(bucket, manifestKey)));
+        }
+        return new ListingEntries();
+    }
+
+    private static class LocalFile {
+        private final FilePath filePath;
+        private final long size;
+        private final long lastModified;
+        private String md5;
+
+        LocalFile(FilePath filePath) throws IOException, InterruptedException {
+            this.filePath = filePath;
+            this.size = filePath.length();
+            this.lastModified = filePath.lastModified();
+        }
+
+        boolean matches(RemoteEntry entry) throws IOException, InterruptedException {
+            if (entry.size != size) {
+                return false;
+            }
+            if (entry.lastModified == lastModified) {
+                md5 = entry.md5;
+                return true;
+            }
+            if (entry.md5 == null) {
+                return false;
+            }
+            // Touched but maybe not modified, only hash when size and time cannot decide
+            md5 = filePath.digest();
+            return md5.equalsIgnoreCase(entry.md5);
+        }
+    }
+
+    private static class RemoteEntry {
+        private final String key;
+        private final long size;
+        private final long lastModified;
+        private final String md5;
+
+        RemoteEntry(String key, long size, long lastModified, String md5) {
+            this.key = key;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.md5 = md5;
+        }
+    }
+
+    private abstract static class RemoteEntries implements Closeable {
+        abstract RemoteEntry next() throws IOException, InterruptedException;
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    private class ManifestEntries extends RemoteEntries {
+        private final OSSObject object;
+        private final BufferedReader reader;
+
+        ManifestEntries(OSSObject object) {
+            this.object = object;
+            this.reader = new BufferedReader(new InputStreamReader(object.getObjectContent(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        RemoteEntry next() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split("\t", 4);
+                if (values.length == 4) {
+                    return new RemoteEntry(values[3], Long.parseLong(values[0]), Long.parseLong(values[1]),
+                            values[2].isEmpty() ? null : values[2]);
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            object.close();
+        }
+    }
+
+    private class ListingEntries extends RemoteEntries {
+        private final ListObjectsRequest request = new ListObjectsRequest(bucket);
+        private Iterator<OSSObjectSummary> page = Collections.emptyIterator();
+        private boolean truncated = true;
+
+        ListingEntries() {
+            request.setPrefix(prefix);
+            request.setMaxKeys(LIST_PAGE_SIZE);
+        }
+
+        @Override
+        RemoteEntry next() throws IOException, InterruptedException {
+            while (!page.hasNext() && truncated) {
+                ObjectListing listing = retrier.call("List: " + prefix, () -> ossClient.listObjects(request));
+                page = listing.getObjectSummaries().iterator();
+                truncated = listing.isTruncated();
+                request.setMarker(listing.getNextMarker());
+            }
+            if (!page.hasNext()) {
+                return null;
+            }
+            OSSObjectSummary summary = page.next();
+            // Multipart ETags are not a content MD5
+            String eTag = summary.getETag();
+            String md5 = eTag == null || eTag.contains("-") ? null : eTag;
+            return new RemoteEntry(summary.getKey(), summary.getSize(), -1, md5);
+        }
+    }
+}
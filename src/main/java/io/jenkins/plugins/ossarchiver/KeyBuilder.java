@@ -0,0 +1,206 @@
+package io.jenkins.plugins.ossarchiver;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Builds object keys exactly as {@code FilePath.normalize(uploadFolder + "/" + folder + "/" + file)} would, with the
+ * platform separators of folder and file turned into "/", in a single pass over the characters.
+ * <p>
+ * The normalized upload folder, and then the folder of the current artifact, are kept as a snapshot, so a key only
+ * goes over the characters of its file. Names are written straight into a reused buffer and a "." or ".." is undone
+ * by truncating it, the key itself is the only allocation. Not thread safe.
+ * <p>
+ * Like {@code FilePath.normalize}, a separator kept in the output is the first one of its run, "/" or "\", and a
+ * leading ".." of a relative path is kept while one of an absolute path is dropped.
+ */
+final class KeyBuilder {
+    private final char separatorChar;
+    private final StringBuilder out = new StringBuilder(256);
+    // Where each name in the output starts, including the separator before it
+    private int[] starts = new int[16];
+    private int depth;
+    private boolean absolute;
+    // A leading ".." still waiting for the separator after it
+    private boolean leadingParent;
+    // First separator of the run before the next name
+    private char separator;
+    // -1 between names
+    private int nameStart = -1;
+    private int entryStart;
+    private State uploadFolderState;
+    private State folderState;
+
+    KeyBuilder(String uploadFolder) {
+        this(uploadFolder, File.separatorChar);
+    }
+
+    KeyBuilder(String uploadFolder, char separatorChar) {
+        this.separatorChar = separatorChar;
+        String path = uploadFolder + "/";
+        append(path, appendPrefix(path), false);
+        uploadFolderState = save();
+        folderState = uploadFolderState;
+    }
+
+    private KeyBuilder() {
+        this.separatorChar = '/';
+    }
+
+    /**
+     * @param folder folder of the following files relative to the workspace, with platform separators
+     */
+    public void setFolder(String folder) {
+        restore(uploadFolderState);
+        append(folder, 0, true);
+        append('/');
+        folderState = save();
+    }
+
+    /**
+     * @param file path relative to the current folder, with platform separators
+     */
+    public String build(String file) {
+        restore(folderState);
+        append(file, 0, true);
+        return finish();
+    }
+
+    /**
+     * @see hudson.FilePath#normalize(String)
+     */
+    public static String normalize(String path) {
+        KeyBuilder builder = new KeyBuilder();
+        builder.append(path, builder.appendPrefix(path), false);
+        return builder.finish();
+    }
+
+    /**
+     * Copies the prefix marking an absolute path: "\\", a drive with a separator, or a single separator. The
+     * separators following it are skipped by {@link #append(char)} since no name came before them.
+     *
+     * @return length of the prefix
+     */
+    private int appendPrefix(String path) {
+        int length;
+        if (path.startsWith("\\\\")) {
+            length = 2;
+        } else if (path.length() >= 3 && isDriveLetter(path.charAt(0)) && path.charAt(1) == ':' && isSeparator(path.charAt(2))) {
+            length = 3;
+        } else if (!path.isEmpty() && isSeparator(path.charAt(0))) {
+            length = 1;
+        } else {
+            return 0;
+        }
+        out.append(path, 0, length);
+        absolute = true;
+        return length;
+    }
+
+    private void append(String value, int from, boolean platformSeparators) {
+        for (int i = from; i < value.length(); i++) {
+            char c = value.charAt(i);
+            append(platformSeparators && c == separatorChar ? '/' : c);
+        }
+    }
+
+    private void append(char c) {
+        if (isSeparator(c)) {
+            if (nameStart >= 0) {
+                endName();
+                separator = c;
+            }
+            return;
+        }
+        if (nameStart < 0) {
+            startName();
+        }
+        out.append(c);
+    }
+
+    private void startName() {
+        if (leadingParent) {
+            out.append(separator);
+            leadingParent = false;
+        }
+        entryStart = out.length();
+        if (depth > 0) {
+            out.append(separator);
+        }
+        nameStart = out.length();
+    }
+
+    private void endName() {
+        int length = out.length() - nameStart;
+        if (length == 1 && out.charAt(nameStart) == '.') {
+            out.setLength(entryStart);
+        } else if (length == 2 && out.charAt(nameStart) == '.' && out.charAt(nameStart + 1) == '.') {
+            out.setLength(entryStart);
+            if (depth > 0) {
+                out.setLength(starts[--depth]);
+            } else if (!absolute) {
+                out.append("..");
+                leadingParent = true;
+            }
+        } else {
+            if (depth == starts.length) {
+                starts = Arrays.copyOf(starts, depth * 2);
+            }
+            starts[depth++] = entryStart;
+        }
+        nameStart = -1;
+    }
+
+    private String finish() {
+        if (nameStart >= 0) {
+            endName();
+        }
+        return out.length() == 0 ? "." : out.toString();
+    }
+
+    private State save() {
+        return new State(out.toString(), Arrays.copyOf(starts, depth), absolute, leadingParent, separator);
+    }
+
+    private void restore(State state) {
+        out.setLength(0);
+        out.append(state.text);
+        if (starts.length < state.starts.length) {
+            starts = Arrays.copyOf(state.starts, state.starts.length * 2);
+        } else {
+            System.arraycopy(state.starts, 0, starts, 0, state.starts.length);
+        }
+        depth = state.starts.length;
+        absolute = state.absolute;
+        leadingParent = state.leadingParent;
+        separator = state.separator;
+        nameStart = -1;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '/' || c == '\\';
+    }
+
+    private static boolean isDriveLetter(char c) {
+        return c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z';
+    }
+
+    /**
+     * The builder between two names, always right after a separator.
+     */
+    private static class State {
+        private final String text;
+        private final int[] starts;
+        private final boolean absolute;
+        private final boolean leadingParent;
+        private final char separator;
+
+        State(String text, int[] starts, boolean absolute, boolean leadingParent, char separator) {
+            this.text = text;
+            this.starts = starts;
+            this.absolute = absolute;
+            this.leadingParent = leadingParent;
+            this.separator = separator;
+        }
+    }
+}
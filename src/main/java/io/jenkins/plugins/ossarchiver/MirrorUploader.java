@@ -0,0 +1,485 @@
+package io.jenkins.plugins.ossarchiver;
+
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.CopyObjectRequest;
+import com.aliyun.oss.model.ObjectMetadata;
+import com.aliyun.oss.model.PartETag;
+import com.aliyun.oss.model.PutObjectResult;
+import hudson.FilePath;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Copies the objects of a publish to the {@link UploadOptions#getMirrors() mirror targets}.
+ * <p>
+ * Local data is read once for all targets: {@link #fanOut} tees the stream of a single request into a pipe per
+ * mirror, each sent by its own request at the same time, and {@link #multipart} sends every part of a multipart upload
+ * to the multipart upload of each mirror. Deduplicated files are copied within each mirror bucket. Only a mirror the
+ * tee or the copy could not serve gets the file read again. Each mirror has its own client and at most
+ * {@link UploadOptions.Mirror#getConcurrency()} files in flight; permits are always taken in the same order, so
+ * uploads waiting for several mirrors cannot block each other.
+ */
+public class MirrorUploader implements AutoCloseable {
+    private static final int PIPE_SIZE = 256 * 1024;
+
+    private final List<Target> targets = new ArrayList<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool(
+            new NamingThreadFactory(new DaemonThreadFactory(), "OSSArchiver mirror upload"));
+    private final UploadOptions options;
+    private final OSSArchiverLogger logger;
+    private final Map<String, Integer> failures;
+    private UploadGate gate;
+
+    /**
+     * @param failures counts of failed copies, by target name and error code
+     */
+    public MirrorUploader(UploadOptions options, ExecutorService partExecutor, FilePath checkpointDir,
+                          OSSArchiverLogger logger, Map<String, Integer> failures) {
+        this.options = options;
+        this.logger = logger;
+        this.failures = failures;
+        try {
+            for (UploadOptions.Mirror mirror : options.getMirrors()) {
+                targets.add(new Target(mirror, partExecutor, checkpointDir));
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    public void setGate(UploadGate gate) {
+        this.gate = gate;
+        for (Target target : targets) {
+            target.multipartUploader.setGate(gate);
+        }
+    }
+
+    public boolean isEmpty() {
+        return targets.isEmpty();
+    }
+
+    /**
+     * @return objects copied to each mirror, by target name
+     */
+    public Map<String, Integer> getCopied() {
+        Map<String, Integer> copied = new LinkedHashMap<>();
+        for (Target target : targets) {
+            copied.put(target.mirror.getName(), target.copied.get());
+        }
+        return copied;
+    }
+
+    /**
+     * Starts sending {@code key} to every mirror from the stream the main upload reads, see {@link FanOut#tee}.
+     * Blocks until every mirror has a free upload slot.
+     */
+    public FanOut fanOut(String key, long size) throws InterruptedException {
+        acquireAll();
+        return new FanOut(key, size);
+    }
+
+    /**
+     * Starts a multipart upload of {@code key} on every mirror, fed with the parts of the main upload, see
+     * {@link MultipartFanOut}. Blocks until every mirror has a free upload slot.
+     */
+    public MultipartFanOut multipart(String key) throws InterruptedException {
+        acquireAll();
+        try {
+            return new MultipartFanOut(key);
+        } catch (RuntimeException e) {
+            releaseAll();
+            throw e;
+        }
+    }
+
+    /**
+     * Copies a deduplicated file within each mirror bucket from where the same content was uploaded before, only
+     * uploading {@code file} to mirrors that do not have that object.
+     *
+     * @param copyLimit size from which the copy is sent in parts
+     */
+    public void copyObject(DeduplicationIndex.Entry source, FilePath file, String key, long size, long copyLimit)
+            throws InterruptedException {
+        acquireAll();
+        try {
+            for (Target target : targets) {
+                Retrier retrier = target.retrier.forTask();
+                try {
+                    if (size >= copyLimit) {
+                        target.multipartUploader.copy(source.getKey(), source.getETag(), key, size, retrier);
+                    } else {
+                        CopyObjectRequest request = new CopyObjectRequest(target.mirror.getBucket(), source.getKey(),
+                                target.mirror.getBucket(), key);
+                        // Matches the ETag in the main bucket when the mirror has the same content under the same parts
+                        request.setMatchingETagConstraints(Collections.singletonList(source.getETag()));
+                        retrier.call("Copy on " + target.mirror.getName() + ": " + key, () -> target.client.copyObject(request));
+                    }
+                    target.copied.incrementAndGet();
+                } catch (OSSException e) {
+                    if (OSSErrorCode.NO_SUCH_KEY.equals(e.getErrorCode())
+                            || OSSErrorCode.PRECONDITION_FAILED.equals(e.getErrorCode())) {
+                        logger.file("Copy on " + target.mirror.getName() + " failed, uploading: " + key + ", " + e.getErrorCode());
+                        copyFile(target, file, key, size);
+                    } else {
+                        failed(target, key, e);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    failed(target, key, e);
+                }
+            }
+        } finally {
+            releaseAll();
+        }
+    }
+
+    public void copyBytes(String key, byte[] bytes) throws InterruptedException {
+        for (Target target : targets) {
+            try {
+                target.retrier.forTask().call("Upload to " + target.mirror.getName() + ": " + key,
+                        () -> target.client.putObject(target.mirror.getBucket(), key, new ByteArrayInputStream(bytes)));
+                target.copied.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                failed(target, key, e);
+            }
+        }
+    }
+
+    private void copyFile(Target target, FilePath file, String key, long size) throws InterruptedException {
+        try {
+            Retrier retrier = target.retrier.forTask();
+            if (size >= options.getMultipartThreshold()) {
+                target.multipartUploader.upload(file, key, size, retrier, null, null);
+            } else {
+                retrier.call("Upload to " + target.mirror.getName() + ": " + key, () -> {
+                    try (InputStream inputStream = ThrottledInputStream.wrap(file.read(), gate)) {
+                        return target.client.putObject(target.mirror.getBucket(), key, inputStream);
+                    }
+                });
+            }
+            target.copied.incrementAndGet();
+        } catch (IOException | RuntimeException e) {
+            failed(target, key, e);
+        }
+    }
+
+    private void failed(Target target, String key, Exception e) {
+        logger.warn("Upload to " + target.mirror.getName() + " failed: " + key, e);
+        failures.merge(target.mirror.getName() + ":" + OSSUploader.getErrorCode(e), 1, Integer::sum);
+    }
+
+    private void acquireAll() throws InterruptedException {
+        int acquired = 0;
+        try {
+            for (Target target : targets) {
+                target.permits.acquire();
+                acquired++;
+            }
+        } finally {
+            if (acquired < targets.size()) {
+                for (int i = 0; i < acquired; i++) {
+                    targets.get(i).permits.release();
+                }
+            }
+        }
+    }
+
+    private void releaseAll() {
+        for (Target target : targets) {
+            target.permits.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        for (Target target : targets) {
+            target.lease.close();
+        }
+    }
+
+    /**
+     * The copies of one file to every mirror, fed by the main upload.
+     */
+    public class FanOut {
+        private final String key;
+        private final long size;
+        private final List<Future<PutObjectResult>> puts = new ArrayList<>(targets.size());
+        private final List<PipedOutputStream> pipes = new ArrayList<>(targets.size());
+        private boolean teed;
+
+        FanOut(String key, long size) {
+            this.key = key;
+            this.size = size;
+        }
+
+        /**
+         * @return {@code source} also writing everything read to the mirrors, only the first call tees so a retried
+         * main upload does not send the content twice
+         */
+        public InputStream tee(InputStream source) throws IOException {
+            if (teed) {
+                return source;
+            }
+            teed = true;
+            for (Target target : targets) {
+                PipedInputStream pipe = new PipedInputStream(PIPE_SIZE);
+                pipes.add(new PipedOutputStream(pipe));
+                ObjectMetadata metadata = new ObjectMetadata();
+                // A stream cut short by a failed main upload then fails the copy instead of storing part of the file
+                metadata.setContentLength(size);
+                puts.add(executor.submit(() -> {
+                    // Closing the pipe unblocks the tee when this request fails
+                    try (InputStream inputStream = pipe) {
+                        return target.client.putObject(target.mirror.getBucket(), key, inputStream, metadata);
+                    }
+                }));
+            }
+            return new TeeInputStream(source, pipes);
+        }
+
+        /**
+         * Waits for the teed copies and uploads {@code file} again to the mirrors they failed for. When the main
+         * upload failed, the object is not listed anywhere, so the teed copies are deleted instead.
+         *
+         * @param crc64    unsigned CRC64 of the content to check the copies against, null to not check
+         * @param uploaded whether the main upload succeeded
+         */
+        public void finish(FilePath file, String crc64, boolean uploaded) throws InterruptedException {
+            try {
+                for (int i = 0; i < targets.size(); i++) {
+                    Target target = targets.get(i);
+                    if (!uploaded) {
+                        if (i < puts.size()) {
+                            deleteQuietly(target, puts.get(i));
+                        }
+                    } else if (i < puts.size() && succeeded(target, puts.get(i), crc64)) {
+                        target.copied.incrementAndGet();
+                    } else {
+                        copyFile(target, file, key, size);
+                    }
+                }
+            } finally {
+                releaseAll();
+            }
+        }
+
+        private boolean succeeded(Target target, Future<PutObjectResult> put, String crc64) throws InterruptedException {
+            try {
+                Long serverCrc = put.get().getServerCRC();
+                if (crc64 != null && serverCrc != null && !crc64.equals(Long.toUnsignedString(serverCrc))) {
+                    logger.warn("Checksum mismatch uploading to " + target.mirror.getName() + ", uploading again: " + key);
+                    return false;
+                }
+                return true;
+            } catch (ExecutionException e) {
+                logger.file("Upload to " + target.mirror.getName() + " failed, uploading again: " + key + ", "
+                        + OSSUploader.getErrorCode(e.getCause()));
+                return false;
+            }
+        }
+
+        private void deleteQuietly(Target target, Future<PutObjectResult> put) throws InterruptedException {
+            try {
+                put.get();
+            } catch (ExecutionException e) {
+                // Nothing was stored
+                return;
+            }
+            try {
+                target.retrier.forTask().call("Delete from " + target.mirror.getName() + ": " + key, () -> {
+                    target.client.deleteObject(target.mirror.getBucket(), key);
+                    return null;
+                });
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Cannot delete copy of a failed upload from " + target.mirror.getName() + ": " + key, e);
+            }
+        }
+    }
+
+    /**
+     * The multipart uploads of one object to every mirror, receiving each part the main upload read. A mirror whose
+     * part fails is dropped from the upload and its copy counted as failed, the file is not read again for it.
+     */
+    public class MultipartFanOut implements MultipartUploader.PartSink {
+        private final String key;
+        private final Map<Target, String> uploadIds = new LinkedHashMap<>();
+        private final Map<Target, Retrier> retriers = new LinkedHashMap<>();
+        private final Map<Target, Map<Integer, PartETag>> parts = new LinkedHashMap<>();
+        private final Set<Target> failed = ConcurrentHashMap.newKeySet();
+
+        MultipartFanOut(String key) throws InterruptedException {
+            this.key = key;
+            for (Target target : targets) {
+                Retrier retrier = target.retrier.forTask();
+                try {
+                    uploadIds.put(target, target.multipartUploader.initiate(key, retrier));
+                    retriers.put(target, retrier);
+                    parts.put(target, new ConcurrentHashMap<>());
+                } catch (IOException | RuntimeException e) {
+                    failed(target, key, e);
+                }
+            }
+        }
+
+        @Override
+        public void part(int partNumber, byte[] buffer, int length) throws InterruptedException {
+            for (Map.Entry<Target, String> upload : uploadIds.entrySet()) {
+                Target target = upload.getKey();
+                if (failed.contains(target)) {
+                    continue;
+                }
+                try {
+                    PartETag partETag = retriers.get(target).call("Upload part " + partNumber + " to "
+                            + target.mirror.getName() + ": " + key, () -> target.multipartUploader.uploadPart(key,
+                            upload.getValue(), partNumber, new ByteArrayInputStream(buffer, 0, length), length, null));
+                    parts.get(target).put(partNumber, partETag);
+                } catch (IOException | RuntimeException e) {
+                    if (failed.add(target)) {
+                        failed(target, key, e);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Completes the uploads every part reached, aborts the others.
+         *
+         * @param uploaded whether the main upload succeeded, the mirrors are aborted otherwise
+         */
+        public void finish(boolean uploaded) throws InterruptedException {
+            try {
+                for (Map.Entry<Target, String> upload : uploadIds.entrySet()) {
+                    Target target = upload.getKey();
+                    if (!uploaded || failed.contains(target)) {
+                        target.multipartUploader.abortQuietly(key, upload.getValue());
+                        continue;
+                    }
+                    try {
+                        target.multipartUploader.complete(key, upload.getValue(), parts.get(target), retriers.get(target));
+                        target.copied.incrementAndGet();
+                    } catch (IOException | RuntimeException e) {
+                        failed(target, key, e);
+                        target.multipartUploader.abortQuietly(key, upload.getValue());
+                    }
+                }
+            } finally {
+                releaseAll();
+            }
+        }
+    }
+
+    /**
+     * Writes what is read to every pipe whose reader is still there.
+     */
+    private static class TeeInputStream extends FilterInputStream {
+        private final List<PipedOutputStream> pipes;
+
+        TeeInputStream(InputStream in, List<PipedOutputStream> pipes) {
+            super(in);
+            this.pipes = new ArrayList<>(pipes);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                write(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes would be missing from the copies
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void write(byte[] b, int off, int len) {
+            for (Iterator<PipedOutputStream> it = pipes.iterator(); it.hasNext(); ) {
+                PipedOutputStream pipe = it.next();
+                try {
+                    pipe.write(b, off, len);
+                } catch (IOException e) {
+                    // The copy failed and closed its end, it is uploaded again afterwards
+                    it.remove();
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                for (PipedOutputStream pipe : pipes) {
+                    try {
+                        pipe.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+            }
+        }
+    }
+
+    private class Target {
+        private final UploadOptions.Mirror mirror;
+        private final OSSClientCache.Lease lease;
+        private final OSSClient client;
+        private final Retrier retrier;
+        private final MultipartUploader multipartUploader;
+        private final Semaphore permits;
+        private final AtomicInteger copied = new AtomicInteger();
+
+        Target(UploadOptions.Mirror mirror, ExecutorService partExecutor, FilePath checkpointDir) {
+            this.mirror = mirror;
+            this.lease = OSSClientCache.acquire(mirror.getClientSettings());
+            this.client = lease.getClient();
+            this.retrier = new Retrier(options.getRetryPolicy(),
+                    CircuitBreaker.of(mirror.getClientSettings().getEndPoint(), mirror.getBucket()), logger);
+            // Checkpoints are named after bucket and key, bucket names are unique across regions
+            this.multipartUploader = new MultipartUploader(client, mirror.getBucket(), options.getMultipartPartSize(),
+                    partExecutor, checkpointDir, logger);
+            this.permits = new Semaphore(Math.max(1, mirror.getConcurrency()));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package io.jenkins.plugins.ossarchiver;
+
+/**
+ * Reports the slots taken through a gate to an {@link UploadMonitor}, for uploads from an agent where the monitor
+ * cannot run next to the uploader. Exported over the agent channel in place of the session it wraps.
+ */
+public class MonitoredGate implements UploadGate {
+    private final UploadGate gate;
+    private final UploadMonitor monitor;
+
+    /**
+     * @param gate gate admitting the uploads, or null for no limits
+     */
+    public MonitoredGate(UploadGate gate, UploadMonitor monitor) {
+        this.gate = gate;
+        this.monitor = monitor;
+    }
+
+    @Override
+    public void acquireSlot() throws InterruptedException {
+        monitor.queued();
+        if (gate != null) {
+            try {
+                gate.acquireSlot();
+            } catch (InterruptedException e) {
+                monitor.dropped();
+                throw e;
+            }
+        }
+        monitor.started();
+    }
+
+    @Override
+    public void releaseSlot() {
+        try {
+            if (gate != null) {
+                gate.releaseSlot();
+            }
+        } finally {
+            monitor.finished();
+        }
+    }
+
+    @Override
+    public void acquireBytes(long bytes) throws InterruptedException {
+        if (gate != null) {
+            gate.acquireBytes(bytes);
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package io.jenkins.plugins.ossarchiver;
+
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.*;
+import hudson.FilePath;
+import hudson.Util;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.output.NullOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Uploads a single large file with OSS multipart upload, sending parts in parallel.
+ * <p>
+ * The upload id is kept in a checkpoint file next to the workspace, so a retried or re-run step lists the parts
+ * OSS already has and only sends the missing ones. Every request goes through the {@link Retrier} given for the
+ * upload, so a transient error repeats a single part rather than the whole object.
+ * <p>
+ * When given {@link Checksums}, every part is checked against the MD5 and CRC64 OSS computed, a mismatch fails the
+ * attempt so the part is sent again, and the CRC64 of the completed object is checked against the combined parts.
+ * <p>
+ * When given a {@link PartSink}, every part is read once into memory and handed to the sink after it was sent, so
+ * other targets get the same parts without reading the file again.
+ */
+public class MultipartUploader {
+    private static final int MAX_PARTS = 10000;
+    private static final int MAX_BUFFERED_PARTS = 4;
+
+    private final OSSClient ossClient;
+    private final String bucket;
+    private final long partSize;
+    private final ExecutorService partExecutor;
+    private final FilePath checkpointDir;
+    private final OSSArchiverLogger logger;
+    private UploadGate gate;
+
+    public MultipartUploader(OSSClient ossClient, String bucket, long partSize, ExecutorService partExecutor,
+                             FilePath checkpointDir, OSSArchiverLogger logger) {
+        this.ossClient = ossClient;
+        this.bucket = bucket;
+        this.partSize = partSize;
+        this.partExecutor = partExecutor;
+        this.checkpointDir = checkpointDir;
+        this.logger = logger;
+    }
+
+    /**
+     * @param gate throttles the bytes read from files, null for no limit
+     */
+    public void setGate(UploadGate gate) {
+        this.gate = gate;
+    }
+
+    /**
+     * @param checksums receives the checksums of the object, null to not verify
+     * @param sink      receives every part of the file, including the ones a resumed upload does not send, null for none
+     * @return ETag of the completed object
+     */
+    public String upload(FilePath file, String key, long size, Retrier retrier, Checksums checksums, PartSink sink)
+            throws IOException, InterruptedException {
+        long actualPartSize = Math.max(partSize, (size + MAX_PARTS - 1) / MAX_PARTS);
+        int partCount = (int) ((size + actualPartSize - 1) / actualPartSize);
+        long lastModified = file.lastModified();
+
+        FilePath checkpointFile = checkpointDir.child(Util.getDigestOf(bucket + "/" + key) + ".properties");
+        Properties checkpoint = loadCheckpoint(checkpointFile);
+        String uploadId = null;
+        Map<Integer, PartETag> uploadedParts = new HashMap<>();
+        if (checkpoint != null) {
+            String checkpointUploadId = checkpoint.getProperty("uploadId");
+            if (matches(checkpoint, key, size, lastModified, actualPartSize)) {
+                try {
+                    uploadedParts = retrier.call("List parts: " + key,
+                            () -> listUploadedParts(key, checkpointUploadId, size, actualPartSize));
+                    uploadId = checkpointUploadId;
+                    logger.file("Resuming: " + key + ", " + uploadedParts.size() + "/" + partCount + " parts uploaded");
+                    if (checksums != null) {
+                        verifyUploadedParts(file, key, size, actualPartSize, uploadedParts, checksums);
+                    }
+                } catch (OSSException e) {
+                    if (!OSSErrorCode.NO_SUCH_UPLOAD.equals(e.getErrorCode())) {
+                        throw e;
+                    }
+                }
+            } else {
+                abortQuietly(key, checkpointUploadId);
+            }
+        }
+        if (uploadId == null) {
+            uploadId = initiate(key, retrier);
+            saveCheckpoint(checkpointFile, key, size, lastModified, actualPartSize, uploadId);
+        }
+
+        List<Future<PartETag>> futures = new ArrayList<>(partCount - uploadedParts.size());
+        for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+            boolean uploaded = uploadedParts.containsKey(partNumber);
+            if (uploaded && sink == null) {
+                continue;
+            }
+            long offset = (partNumber - 1) * actualPartSize;
+            long length = Math.min(actualPartSize, size - offset);
+            futures.add(partExecutor.submit(new PartTask(file, key, uploaded ? null : uploadId, partNumber, offset, length,
+                    retrier, checksums, sink)));
+        }
+        try {
+            collect(futures, uploadedParts);
+        } catch (ExecutionException e) {
+            throw new IOException("Upload part failed: " + key, e.getCause());
+        }
+
+        CompleteMultipartUploadResult result = complete(key, uploadId, uploadedParts, retrier);
+        checkpointFile.delete();
+        if (checksums != null) {
+            checksums.completeParts(key, result.getServerCRC());
+        }
+        return result.getETag();
+    }
+
+    /**
+     * Uploads a stream of unknown length, such as an archive being built. Parts are buffered in memory, at most
+     * {@link #MAX_BUFFERED_PARTS} at a time, and nothing is checkpointed since the stream cannot be replayed.
+     *
+     * @param checksums receives the checksums of the object, null to not verify
+     * @param sink      receives every part, null for none
+     * @return ETag of the completed object
+     */
+    public String upload(InputStream inputStream, String key, Retrier retrier, Checksums checksums, PartSink sink)
+            throws IOException, InterruptedException {
+        String uploadId = initiate(key, retrier);
+        Semaphore bufferedParts = new Semaphore(MAX_BUFFERED_PARTS);
+        List<Future<PartETag>> futures = new ArrayList<>();
+        Map<Integer, PartETag> uploadedParts = new HashMap<>();
+        boolean completed = false;
+        try {
+            for (int partNumber = 1; ; partNumber++) {
+                byte[] buffer = new byte[(int) Math.min(partSize, Integer.MAX_VALUE)];
+                int length = IOUtils.read(inputStream, buffer);
+                if (length == 0 && partNumber > 1) {
+                    break;
+                }
+                if (partNumber > MAX_PARTS) {
+                    throw new IOException("Stream exceeds " + MAX_PARTS + " parts of " + partSize + " bytes: " + key);
+                }
+                bufferedParts.acquire();
+                int currentPartNumber = partNumber;
+                futures.add(partExecutor.submit(() -> {
+                    try {
+                        PartETag partETag = retrier.call("Upload part " + currentPartNumber + ": " + key, () -> uploadPart(key,
+                                uploadId, currentPartNumber, new ByteArrayInputStream(buffer, 0, length), length, checksums));
+                        if (sink != null) {
+                            sink.part(currentPartNumber, buffer, length);
+                        }
+                        return partETag;
+                    } finally {
+                        bufferedParts.release();
+                    }
+                }));
+                if (length < buffer.length) {
+                    break;
+                }
+            }
+            collect(futures, uploadedParts);
+            CompleteMultipartUploadResult result = complete(key, uploadId, uploadedParts, retrier);
+            completed = true;
+            if (checksums != null) {
+                checksums.completeParts(key, result.getServerCRC());
+            }
+            return result.getETag();
+        } catch (ExecutionException e) {
+            throw new IOException("Upload part failed: " + key, e.getCause());
+        } finally {
+            if (!completed) {
+                for (Future<PartETag> future : futures) {
+                    future.cancel(true);
+                }
+                abortQuietly(key, uploadId);
+            }
+        }
+    }
+
+    /**
+     * Copies an existing object server side with UploadPartCopy, for sources too large for a single CopyObject.
+     * Every part requires the source to still have {@code sourceETag}.
+     *
+     * @return ETag of the new object
+     */
+    public String copy(String sourceKey, String sourceETag, String key, long size, Retrier retrier) throws IOException, InterruptedException {
+        long actualPartSize = Math.max(partSize, (size + MAX_PARTS - 1) / MAX_PARTS);
+        int partCount = (int) ((size + actualPartSize - 1) / actualPartSize);
+        String uploadId = initiate(key, retrier);
+        List<Future<PartETag>> futures = new ArrayList<>(partCount);
+        for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+            long offset = (partNumber - 1) * actualPartSize;
+            UploadPartCopyRequest request = new UploadPartCopyRequest(bucket, sourceKey, bucket, key, uploadId,
+                    partNumber, offset, Math.min(actualPartSize, size - offset));
+            request.setMatchingETagConstraints(Collections.singletonList(sourceETag));
+            futures.add(partExecutor.submit(() -> retrier.call("Copy part " + request.getPartNumber() + ": " + key,
+                    () -> ossClient.uploadPartCopy(request).getPartETag())));
+        }
+        Map<Integer, PartETag> copiedParts = new HashMap<>();
+        try {
+            collect(futures, copiedParts);
+        } catch (ExecutionException e) {
+            abortQuietly(key, uploadId);
+            if (e.getCause() instanceof OSSException) {
+                throw (OSSException) e.getCause();
+            }
+            throw new IOException("Copy part failed: " + key, e.getCause());
+        }
+        return complete(key, uploadId, copiedParts, retrier).getETag();
+    }
+
+    /**
+     * @param futures parts sent, a null result for a part only handed to the sink
+     */
+    private void collect(List<Future<PartETag>> futures, Map<Integer, PartETag> parts) throws ExecutionException, InterruptedException {
+        try {
+            for (Future<PartETag> future : futures) {
+                PartETag partETag = future.get();
+                if (partETag != null) {
+                    parts.put(partETag.getPartNumber(), partETag);
+                }
+            }
+        } finally {
+            for (Future<PartETag> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    String initiate(String key, Retrier retrier) throws IOException, InterruptedException {
+        return retrier.call("Initiate multipart upload: " + key,
+                () -> ossClient.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucket, key)).getUploadId());
+    }
+
+    CompleteMultipartUploadResult complete(String key, String uploadId, Map<Integer, PartETag> parts, Retrier retrier) throws IOException, InterruptedException {
+        List<PartETag> partETags = new ArrayList<>(parts.values());
+        partETags.sort(Comparator.comparingInt(PartETag::getPartNumber));
+        return retrier.call("Complete multipart upload: " + key, () -> ossClient.completeMultipartUpload(
+                new CompleteMultipartUploadRequest(bucket, key, uploadId, partETags)));
+    }
+
+    PartETag uploadPart(String key, String uploadId, int partNumber, InputStream inputStream, long length,
+                                Checksums checksums) throws IOException {
+        ChecksumInputStream checksumStream = checksums != null ? checksums.wrap(inputStream) : null;
+        try (InputStream content = checksumStream != null ? checksumStream : inputStream) {
+            UploadPartResult result = ossClient.uploadPart(new UploadPartRequest(bucket, key, uploadId, partNumber, content, length));
+            if (checksumStream != null) {
+                checksumStream.verify("part " + partNumber + " of " + key, result.getETag(), result.getServerCRC());
+                checksums.addPart(partNumber, checksumStream.getCrc64(), length);
+            }
+            return result.getPartETag();
+        }
+    }
+
+    /**
+     * Reads the parts a resumed upload does not send again, so they are part of the checksums as well, and drops
+     * the ones whose content differs from the file.
+     */
+    private void verifyUploadedParts(FilePath file, String key, long size, long actualPartSize,
+                                     Map<Integer, PartETag> uploadedParts, Checksums checksums) throws IOException, InterruptedException {
+        Iterator<PartETag> iterator = uploadedParts.values().iterator();
+        while (iterator.hasNext()) {
+            PartETag part = iterator.next();
+            long offset = (part.getPartNumber() - 1) * actualPartSize;
+            long length = Math.min(actualPartSize, size - offset);
+            try (ChecksumInputStream inputStream = checksums.wrap(new BoundedInputStream(file.readFromOffset(offset), length))) {
+                IOUtils.copy(inputStream, NullOutputStream.NULL_OUTPUT_STREAM);
+                if (part.getETag().equalsIgnoreCase(inputStream.getMd5())) {
+                    checksums.addPart(part.getPartNumber(), inputStream.getCrc64(), length);
+                } else {
+                    logger.warn("Uploading part " + part.getPartNumber() + " again, content differs: " + key);
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private Map<Integer, PartETag> listUploadedParts(String key, String uploadId, long size, long actualPartSize) {
+        Map<Integer, PartETag> parts = new HashMap<>();
+        ListPartsRequest request = new ListPartsRequest(bucket, key, uploadId);
+        PartListing listing;
+        do {
+            listing = ossClient.listParts(request);
+            for (PartSummary part : listing.getParts()) {
+                long offset = (part.getPartNumber() - 1) * actualPartSize;
+                // A part of unexpected size was written with different settings, upload it again
+                if (offset < size && part.getSize() == Math.min(actualPartSize, size - offset)) {
+                    parts.put(part.getPartNumber(), new PartETag(part.getPartNumber(), part.getETag()));
+                }
+            }
+            request.setPartNumberMarker(listing.getNextPartNumberMarker());
+        } while (listing.isTruncated());
+        return parts;
+    }
+
+    private boolean matches(Properties checkpoint, String key, long size, long lastModified, long actualPartSize) {
+        return bucket.equals(checkpoint.getProperty("bucket"))
+                && key.equals(checkpoint.getProperty("key"))
+                && String.valueOf(size).equals(checkpoint.getProperty("size"))
+                && String.valueOf(lastModified).equals(checkpoint.getProperty("lastModified"))
+                && String.valueOf(actualPartSize).equals(checkpoint.getProperty("partSize"));
+    }
+
+    void abortQuietly(String key, String uploadId) {
+        if (uploadId == null) {
+            return;
+        }
+        try {
+            ossClient.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, key, uploadId));
+        } catch (Exception e) {
+            logger.warn("Abort stale multipart upload failed: " + key, e);
+        }
+    }
+
+    private Properties loadCheckpoint(FilePath checkpointFile) throws IOException, InterruptedException {
+        if (!checkpointFile.exists()) {
+            return null;
+        }
+        Properties checkpoint = new Properties();
+        try (InputStream inputStream = checkpointFile.read()) {
+            checkpoint.load(inputStream);
+        }
+        return checkpoint;
+    }
+
+    private void saveCheckpoint(FilePath checkpointFile, String key, long size, long lastModified, long actualPartSize,
+                                String uploadId) throws IOException, InterruptedException {
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty("bucket", bucket);
+        checkpoint.setProperty("key", key);
+        checkpoint.setProperty("size", String.valueOf(size));
+        checkpoint.setProperty("lastModified", String.valueOf(lastModified));
+        checkpoint.setProperty("partSize", String.valueOf(actualPartSize));
+        checkpoint.setProperty("uploadId", uploadId);
+        checkpointDir.mkdirs();
+        try (OutputStream outputStream = checkpointFile.write()) {
+            checkpoint.store(outputStream, null);
+        }
+    }
+
+    /**
+     * Receives the parts of an upload, called from the threads sending them.
+     */
+    public interface PartSink {
+        /**
+         * @param buffer content of the part in its first {@code length} bytes, not to be changed
+         */
+        void part(int partNumber, byte[] buffer, int length) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Sends one part of a file, and hands it to the sink. Without an upload id, the part was sent before and only
+     * goes to the sink.
+     */
+    private class PartTask implements Callable<PartETag> {
+        private final FilePath file;
+        private final String key;
+        private final String uploadId;
+        private final int partNumber;
+        private final long offset;
+        private final long length;
+        private final Retrier retrier;
+        private final Checksums checksums;
+        private final PartSink sink;
+
+        PartTask(FilePath file, String key, String uploadId, int partNumber, long offset, long length, Retrier retrier,
+                 Checksums checksums, PartSink sink) {
+            this.file = file;
+            this.key = key;
+            this.uploadId = uploadId;
+            this.partNumber = partNumber;
+            this.offset = offset;
+            this.length = length;
+            this.retrier = retrier;
+            this.checksums = checksums;
+            this.sink = sink;
+        }
+
+        @Override
+        public PartETag call() throws Exception {
+            if (sink == null) {
+                return retrier.call("Upload part " + partNumber + ": " + key, () -> uploadPart(key, uploadId, partNumber,
+                        ThrottledInputStream.wrap(new BoundedInputStream(file.readFromOffset(offset), length), gate), length, checksums));
+            }
+            byte[] buffer = new byte[(int) length];
+            try (InputStream inputStream = ThrottledInputStream.wrap(file.readFromOffset(offset), gate)) {
+                IOUtils.readFully(inputStream, buffer);
+            }
+            PartETag partETag = null;
+            if (uploadId != null) {
+                partETag = retrier.call("Upload part " + partNumber + ": " + key, () -> uploadPart(key, uploadId, partNumber,
+                        new ByteArrayInputStream(buffer), length, checksums));
+            }
+            sink.part(partNumber, buffer, buffer.length);
+            return partETag;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package io.jenkins.plugins.ossarchiver;
+
+import org.jenkinsci.plugins.scriptsecurity.sandbox.whitelists.Whitelisted;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What {@link OSSArchiveStep} returns to the pipeline, taken from the {@link UploadReport} of the publish so no
+ * stage has to reload the build or list the bucket to find the uploaded objects.
+ * <p>
+ * Only holds strings and numbers, as it is saved with the program state of the pipeline.
+ */
+public class OSSArchiveResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<ArchivedFile> files;
+    private final int fileCount;
+    private final long bytes;
+    private final long elapsed;
+    private final int retries;
+    private final Map<String, Integer> failures;
+    private final String checksumsUrl;
+
+    private OSSArchiveResult(List<ArchivedFile> files, int fileCount, long bytes, long elapsed, int retries,
+                             Map<String, Integer> failures, String checksumsUrl) {
+        this.files = files;
+        this.fileCount = fileCount;
+        this.bytes = bytes;
+        this.elapsed = elapsed;
+        this.retries = retries;
+        this.failures = failures;
+        this.checksumsUrl = checksumsUrl;
+    }
+
+    /**
+     * @param includeFiles whether to keep an entry for every file, otherwise only the totals
+     */
+    static OSSArchiveResult of(UploadReport report, boolean includeFiles) {
+        List<ArchivedFile> files = new ArrayList<>();
+        int fileCount = 0;
+        for (Map.Entry<String, List<UploadResult>> folder : report.getFolders().entrySet()) {
+            fileCount += folder.getValue().size();
+            if (!includeFiles) {
+                continue;
+            }
+            for (UploadResult item : folder.getValue()) {
+                files.add(new ArchivedFile(folder.getKey(), item));
+            }
+        }
+        UploadStatistics statistics = report.getStatistics();
+        return new OSSArchiveResult(Collections.unmodifiableList(files), fileCount,
+                statistics != null ? statistics.getBytes() : 0,
+                statistics != null ? statistics.getElapsed() : 0,
+                statistics != null ? statistics.getRetries() : 0,
+                Collections.unmodifiableMap(new HashMap<>(report.getFailures())),
+                report.getChecksumsUrl());
+    }
+
+    /**
+     * @return uploaded files in the order they were published, empty when files were not included
+     */
+    @Whitelisted
+    public List<ArchivedFile> getFiles() {
+        return files;
+    }
+
+    /**
+     * @return number of files uploaded or left unchanged by a sync, also when files were not included
+     */
+    @Whitelisted
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * @return bytes sent
+     */
+    @Whitelisted
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return milliseconds of the whole publish
+     */
+    @Whitelisted
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    @Whitelisted
+    public int getRetries() {
+        return retries;
+    }
+
+    /**
+     * @return number of failed uploads by OSS error code
+     * @see UploadReport#getFailures()
+     */
+    @Whitelisted
+    public Map<String, Integer> getFailures() {
+        return failures;
+    }
+
+    @Whitelisted
+    public int getFailureCount() {
+        int count = 0;
+        for (int failures : failures.values()) {
+            count += failures;
+        }
+        return count;
+    }
+
+    /**
+     * @return URL of the uploaded checksum file, null when checksums were not verified
+     */
+    @Whitelisted
+    public String getChecksumsUrl() {
+        return checksumsUrl;
+    }
+
+    /**
+     * @return the uploaded file, null if there is none at this path or files were not included
+     */
+    @Whitelisted
+    public ArchivedFile getFile(String folder, String file) {
+        for (ArchivedFile item : files) {
+            if (item.folder.equals(folder) && item.file.equals(file)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    public static class ArchivedFile implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String folder;
+        private final String file;
+        private final String key;
+        private final String url;
+        private final long size;
+        private final boolean deduplicated;
+        private final String md5;
+        private final String crc64;
+        private final long duration;
+
+        ArchivedFile(String folder, UploadResult result) {
+            this.folder = folder;
+            this.file = result.getFile();
+            this.key = result.getKey();
+            this.url = result.getUrl();
+            this.size = result.getSize();
+            this.deduplicated = result.isDeduplicated();
+            this.md5 = result.getMd5();
+            this.crc64 = result.getCrc64();
+            this.duration = result.getDuration();
+        }
+
+        /**
+         * @return folder of the artifact relative to the workspace
+         */
+        @Whitelisted
+        public String getFolder() {
+            return folder;
+        }
+
+        /**
+         * @return path relative to the folder, or the archive name
+         */
+        @Whitelisted
+        public String getFile() {
+            return file;
+        }
+
+        @Whitelisted
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return plain URL of the object, which needs to be signed to be downloaded from a private bucket
+         */
+        @Whitelisted
+        public String getUrl() {
+            return url;
+        }
+
+        @Whitelisted
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * @see UploadResult#isDeduplicated()
+         */
+        @Whitelisted
+        public boolean isDeduplicated() {
+            return deduplicated;
+        }
+
+        /**
+         * @see UploadResult#getMd5()
+         */
+        @Whitelisted
+        public String getMd5() {
+            return md5;
+        }
+
+        /**
+         * @see UploadResult#getCrc64()
+         */
+        @Whitelisted
+        public String getCrc64() {
+            return crc64;
+        }
+
+        /**
+         * @see UploadResult#getDuration()
+         */
+        @Whitelisted
+        public long getDuration() {
+            return duration;
+        }
+
+        @Override
+        public String toString() {
+            return key;
+        }
+    }
+}
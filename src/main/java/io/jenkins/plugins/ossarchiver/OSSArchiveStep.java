@@ -0,0 +1,264 @@
+package io.jenkins.plugins.ossarchiver;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.AbortException;
+import hudson.EnvVars;
+import hudson.Extension;
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Publishes like the {@code ossArchiver} step and returns an {@link OSSArchiveResult} with the keys, URLs, sizes,
+ * checksums and timings of the uploaded files.
+ * <p>
+ * Always uploads while the step runs, as the result is only known once the upload finished.
+ */
+public class OSSArchiveStep extends Step {
+    private final List<OSSArchiverPublisher.ArtifactConfig> artifacts;
+    private Integer concurrency;
+    private boolean deduplicate;
+    private String uploadFolder;
+    private boolean sync;
+    private boolean deleteOrphans;
+    private String failureResult;
+    private boolean verifyChecksums;
+    private String target;
+    private String mirrors;
+    private boolean verboseLog;
+    private boolean includeFiles = true;
+
+    @DataBoundConstructor
+    public OSSArchiveStep(List<OSSArchiverPublisher.ArtifactConfig> artifacts) {
+        this.artifacts = artifacts;
+    }
+
+    public List<OSSArchiverPublisher.ArtifactConfig> getArtifacts() {
+        return artifacts;
+    }
+
+    public Integer getConcurrency() {
+        return concurrency;
+    }
+
+    @DataBoundSetter
+    public void setConcurrency(Integer concurrency) {
+        this.concurrency = concurrency == null || concurrency <= 0 ? null : concurrency;
+    }
+
+    public boolean isDeduplicate() {
+        return deduplicate;
+    }
+
+    @DataBoundSetter
+    public void setDeduplicate(boolean deduplicate) {
+        this.deduplicate = deduplicate;
+    }
+
+    public String getUploadFolder() {
+        return uploadFolder;
+    }
+
+    @DataBoundSetter
+    public void setUploadFolder(String uploadFolder) {
+        this.uploadFolder = Util.fixEmptyAndTrim(uploadFolder);
+    }
+
+    public boolean isSync() {
+        return sync;
+    }
+
+    @DataBoundSetter
+    public void setSync(boolean sync) {
+        this.sync = sync;
+    }
+
+    public boolean isDeleteOrphans() {
+        return deleteOrphans;
+    }
+
+    @DataBoundSetter
+    public void setDeleteOrphans(boolean deleteOrphans) {
+        this.deleteOrphans = deleteOrphans;
+    }
+
+    public String getFailureResult() {
+        return failureResult;
+    }
+
+    @DataBoundSetter
+    public void setFailureResult(String failureResult) {
+        this.failureResult = Util.fixEmptyAndTrim(failureResult);
+    }
+
+    public boolean isVerifyChecksums() {
+        return verifyChecksums;
+    }
+
+    @DataBoundSetter
+    public void setVerifyChecksums(boolean verifyChecksums) {
+        this.verifyChecksums = verifyChecksums;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    @DataBoundSetter
+    public void setTarget(String target) {
+        this.target = Util.fixEmptyAndTrim(target);
+    }
+
+    public String getMirrors() {
+        return mirrors;
+    }
+
+    @DataBoundSetter
+    public void setMirrors(String mirrors) {
+        this.mirrors = Util.fixEmptyAndTrim(mirrors);
+    }
+
+    public boolean isVerboseLog() {
+        return verboseLog;
+    }
+
+    @DataBoundSetter
+    public void setVerboseLog(boolean verboseLog) {
+        this.verboseLog = verboseLog;
+    }
+
+    public boolean isIncludeFiles() {
+        return includeFiles;
+    }
+
+    /**
+     * @param includeFiles whether the result lists every file, true by default
+     */
+    @DataBoundSetter
+    public void setIncludeFiles(boolean includeFiles) {
+        this.includeFiles = includeFiles;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) {
+        return new Execution(context, toPublisher(), includeFiles);
+    }
+
+    private OSSArchiverPublisher toPublisher() {
+        OSSArchiverPublisher publisher = new OSSArchiverPublisher(artifacts);
+        publisher.setConcurrency(concurrency);
+        publisher.setDeduplicate(deduplicate);
+        publisher.setUploadFolder(uploadFolder);
+        publisher.setSync(sync);
+        publisher.setDeleteOrphans(deleteOrphans);
+        publisher.setFailureResult(failureResult);
+        publisher.setVerifyChecksums(verifyChecksums);
+        publisher.setTarget(target);
+        publisher.setMirrors(mirrors);
+        publisher.setVerboseLog(verboseLog);
+        return publisher;
+    }
+
+    public static class Execution extends SynchronousNonBlockingStepExecution<OSSArchiveResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient OSSArchiverPublisher publisher;
+        private final boolean includeFiles;
+
+        Execution(StepContext context, OSSArchiverPublisher publisher, boolean includeFiles) {
+            super(context);
+            this.publisher = publisher;
+            this.includeFiles = includeFiles;
+        }
+
+        /**
+         * @throws Exception of a publish that could not run, failing the step, so the result is never null
+         */
+        @Override
+        protected OSSArchiveResult run() throws Exception {
+            StepContext context = getContext();
+            TaskListener listener = context.get(TaskListener.class);
+            UploadReport report = publisher.archive(context.get(Run.class), context.get(FilePath.class),
+                    context.get(EnvVars.class), new OSSArchiverLogger(listener), listener);
+            if (report == null) {
+                // Only queued publishes have no report, and the step never queues
+                throw new AbortException("The upload was not run in the step");
+            }
+            return OSSArchiveResult.of(report, includeFiles);
+        }
+    }
+
+    @Extension
+    public static class DescriptorImpl extends StepDescriptor {
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(Run.class, FilePath.class, EnvVars.class, TaskListener.class)));
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "ossArchive";
+        }
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return Messages.OSSArchive_DisplayName();
+        }
+
+        /**
+         * Shares the help of the {@code ossArchiver} step for the options both have.
+         */
+        @Override
+        public String getHelpFile(String fieldName) {
+            String helpFile = super.getHelpFile(fieldName);
+            return helpFile != null ? helpFile : publisherDescriptor().getHelpFile(fieldName);
+        }
+
+        public FormValidation doCheckConcurrency(@QueryParameter String value) {
+            return publisherDescriptor().doCheckConcurrency(value);
+        }
+
+        public ListBoxModel doFillTargetItems() {
+            return publisherDescriptor().doFillTargetItems();
+        }
+
+        public FormValidation doCheckMirrors(@QueryParameter String value) {
+            return publisherDescriptor().doCheckMirrors(value);
+        }
+
+        public ListBoxModel doFillFailureResultItems() {
+            return publisherDescriptor().doFillFailureResultItems();
+        }
+
+        public ListBoxModel doFillArchiveItems() {
+            return publisherDescriptor().doFillArchiveItems();
+        }
+
+        public FormValidation doCheckCompressionLevel(@QueryParameter String value) {
+            return publisherDescriptor().doCheckCompressionLevel(value);
+        }
+
+        private static OSSArchiverPublisher.DescriptorImpl publisherDescriptor() {
+            return Jenkins.get().getDescriptorByType(OSSArchiverPublisher.DescriptorImpl.class);
+        }
+    }
+}
@@ -1,19 +1,62 @@
 package io.jenkins.plugins.ossarchiver;
 
+import hudson.Util;
+import hudson.model.Item;
 import hudson.model.Run;
 import jenkins.model.RunAction2;
 import org.apache.commons.lang3.tuple.Pair;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.ref.SoftReference;
+import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+/**
+ * Links to the uploaded objects of a build.
+ * <p>
+ * The object list lives in an {@link ArtifactList} file next to build.xml and is only loaded, and kept softly
+ * referenced, while the page or the remote API asks for it. Builds of older versions keep their list in
+ * {@link #result} inside build.xml.
+ * <p>
+ * For private buckets, links go through {@link #doDownload} which redirects to a pre-signed URL.
+ */
+@ExportedBean
 public class OSSArchiverAction implements RunAction2 {
-    private final Map<String, List<Pair<String, String>>> result;
+    private static final Logger LOGGER = Logger.getLogger(OSSArchiverAction.class.getName());
+    private static final int PAGE_SIZE = 100;
+
+    private Map<String, List<Pair<String, String>>> result;
+    private String artifactsFile;
+    private int folderCount;
+    private int fileCount;
+    private long bytesSaved;
+    private UploadStatistics statistics;
+    private String checksumsUrl;
+    private boolean sync;
+    private String target;
+    private List<String> mirrors;
+    private String asyncId;
+    private volatile Status status;
     private Run<?, ?> run;
+    private transient SoftReference<ArtifactList> artifacts;
 
-    public OSSArchiverAction(Map<String, List<Pair<String, String>>> result) {
-        this.result = result == null ? Collections.emptyMap() : result;
+    public OSSArchiverAction() {
     }
 
     @Override
@@ -26,8 +69,251 @@ public class OSSArchiverAction implements RunAction2 {
         this.run = r;
     }
 
-    public Map<String, List<Pair<String, String>>> getResult() {
-        return result;
+    /**
+     * Stores {@code artifacts} in the folder of {@code run} and keeps only its location and counts.
+     */
+    public synchronized void setArtifacts(Run<?, ?> run, ArtifactList artifacts) throws IOException {
+        String fileName = asyncId != null ? "oss-archiver-" + asyncId + ".gz"
+                : target != null ? "oss-archiver-" + Util.rawEncode(target) + ".gz" : "oss-archiver.gz";
+        artifacts.save(new File(run.getRootDir(), fileName));
+        this.artifactsFile = fileName;
+        this.result = null;
+        this.folderCount = artifacts.getFolders().size();
+        this.fileCount = artifacts.getEntries().size();
+        this.artifacts = new SoftReference<>(artifacts);
+    }
+
+    public synchronized ArtifactList getArtifacts() {
+        ArtifactList list = artifacts != null ? artifacts.get() : null;
+        if (list != null) {
+            return list;
+        }
+        if (artifactsFile != null && run != null) {
+            try {
+                list = ArtifactList.load(new File(run.getRootDir(), artifactsFile));
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to load the artifact list of " + run, e);
+                return ArtifactList.fromLegacy(Collections.emptyMap());
+            }
+        } else {
+            list = ArtifactList.fromLegacy(result != null ? result : Collections.emptyMap());
+        }
+        artifacts = new SoftReference<>(list);
+        return list;
+    }
+
+    /**
+     * @return every uploaded object, only exported when asked for with a depth, so listing builds does not load it
+     */
+    @Exported(visibility = 2)
+    public List<ArtifactList.Entry> getEntries() {
+        return getArtifacts().getEntries();
+    }
+
+    @Exported
+    public int getFolderCount() {
+        return artifactsFile != null || result == null ? folderCount : result.size();
+    }
+
+    @Exported
+    public int getFileCount() {
+        if (artifactsFile != null || result == null) {
+            return fileCount;
+        }
+        int count = 0;
+        for (List<Pair<String, String>> items : result.values()) {
+            count += items.size();
+        }
+        return count;
+    }
+
+    /**
+     * @param filter part of the folder or file name to show, blank for all
+     * @param page   1 based page number
+     */
+    public Page getPage(String filter, String page) {
+        ArtifactList list = getArtifacts();
+        List<ArtifactList.Entry> entries = list.filter(filter);
+        int pageCount = Math.max(1, (entries.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+        int number;
+        try {
+            number = page != null ? Integer.parseInt(page) : 1;
+        } catch (NumberFormatException e) {
+            number = 1;
+        }
+        number = Math.min(Math.max(number, 1), pageCount);
+        int from = (number - 1) * PAGE_SIZE;
+        return new Page(list, entries.subList(from, Math.min(from + PAGE_SIZE, entries.size())), entries.size(),
+                number, pageCount, filter != null ? filter.trim() : "", OSSArchiverConfiguration.get().isPrivateBucket());
+    }
+
+    /**
+     * Redirects to a pre-signed URL of the entry at {@code index}, so objects of private buckets can be downloaded.
+     */
+    public HttpResponse doDownload(@QueryParameter int index) {
+        run.checkPermission(Item.READ);
+        ArtifactList list = getArtifacts();
+        ArtifactList.Entry entry = list.get(index);
+        if (entry == null) {
+            return HttpResponses.notFound();
+        }
+        String key = list.getObjectKey(entry);
+        String bucket = list.getBucket();
+        if (key == null || bucket == null) {
+            return HttpResponses.redirectTo(list.getUrl(entry));
+        }
+        return HttpResponses.redirectTo(PresignedUrlCache.get(run, getOSSTarget(), bucket, key));
+    }
+
+    /**
+     * @return bytes not uploaded because deduplication copied existing objects
+     */
+    @Exported
+    public long getBytesSaved() {
+        return bytesSaved;
+    }
+
+    public void setBytesSaved(long bytesSaved) {
+        this.bytesSaved = bytesSaved;
+    }
+
+    /**
+     * @return timings of the publish, null for builds archived by older versions
+     */
+    @Exported
+    public UploadStatistics getStatistics() {
+        return statistics;
+    }
+
+    public void setStatistics(UploadStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * @return URL of the checksum file uploaded next to the objects, null when checksums were not verified
+     */
+    @Exported
+    public String getChecksumsUrl() {
+        return checksumsUrl;
+    }
+
+    public void setChecksumsUrl(String checksumsUrl) {
+        this.checksumsUrl = checksumsUrl;
+    }
+
+    /**
+     * Redirects to the checksum file, pre-signed for private buckets.
+     */
+    public HttpResponse doChecksums() {
+        run.checkPermission(Item.READ);
+        if (checksumsUrl == null) {
+            return HttpResponses.notFound();
+        }
+        String bucket = ArtifactList.getBucket(checksumsUrl);
+        if (!OSSArchiverConfiguration.get().isPrivateBucket() || bucket == null) {
+            return HttpResponses.redirectTo(checksumsUrl);
+        }
+        return HttpResponses.redirectTo(PresignedUrlCache.get(run, getOSSTarget(), bucket, ArtifactList.getKey(checksumsUrl)));
+    }
+
+    /**
+     * @return whether the objects were synced into a folder shared by the builds of the job, so they are kept when
+     * this build is deleted
+     */
+    public boolean isSync() {
+        return sync;
+    }
+
+    public void setSync(boolean sync) {
+        this.sync = sync;
+    }
+
+    /**
+     * @return name of the {@link OSSTarget} the objects were uploaded to, null for the default target
+     */
+    @Exported
+    public String getTarget() {
+        return target;
+    }
+
+    public void setTarget(String target) {
+        this.target = target;
+    }
+
+    /**
+     * @throws IllegalArgumentException when the target was removed since
+     */
+    OSSTarget getOSSTarget() {
+        return OSSArchiverConfiguration.get().getTarget(target);
+    }
+
+    /**
+     * @return names of the targets the objects were copied to as well, under the same keys
+     */
+    @Exported
+    public List<String> getMirrors() {
+        return mirrors != null ? mirrors : Collections.emptyList();
+    }
+
+    public void setMirrors(List<String> mirrors) {
+        this.mirrors = mirrors.isEmpty() ? null : new ArrayList<>(mirrors);
+    }
+
+    /**
+     * @return id of the {@link AsyncUpload} filling this action, null when uploaded during the build
+     */
+    public String getAsyncId() {
+        return asyncId;
+    }
+
+    public void setAsyncId(String asyncId) {
+        this.asyncId = asyncId;
+    }
+
+    @Exported
+    public Status getStatus() {
+        return status != null ? status : Status.DONE;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getStatusDisplayName() {
+        switch (getStatus()) {
+            case PENDING:
+                return Messages.Action_StatusPending();
+            case IN_PROGRESS:
+                return Messages.Action_StatusInProgress();
+            case FAILED:
+                return Messages.Action_StatusFailed();
+            default:
+                return Messages.Action_StatusDone();
+        }
+    }
+
+    public boolean isFinished() {
+        return getStatus() == Status.DONE || getStatus() == Status.FAILED;
+    }
+
+    /**
+     * @return log of the background upload, in the build folder
+     */
+    public File getLogFile() {
+        return asyncId != null && run != null ? new File(run.getRootDir(), "oss-archiver-" + asyncId + ".log") : null;
+    }
+
+    public void doLog(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        run.checkPermission(Item.READ);
+        File logFile = getLogFile();
+        if (logFile == null || !logFile.isFile()) {
+            rsp.sendError(StaplerResponse.SC_NOT_FOUND);
+            return;
+        }
+        rsp.setContentType("text/plain;charset=UTF-8");
+        try (OutputStream outputStream = rsp.getOutputStream()) {
+            Files.copy(logFile.toPath(), outputStream);
+        }
     }
 
     public Run<?, ?> getRun() {
@@ -46,6 +332,78 @@ public class OSSArchiverAction implements RunAction2 {
 
     @Override
     public String getUrlName() {
-        return "ossArchiver";
+        if (asyncId != null) {
+            return "ossArchiver-" + asyncId;
+        }
+        return target != null ? "ossArchiver-" + Util.rawEncode(target) : "ossArchiver";
+    }
+
+    public static class Page {
+        private final ArtifactList list;
+        private final List<ArtifactList.Entry> entries;
+        private final int total;
+        private final int number;
+        private final int pageCount;
+        private final String filter;
+        private final boolean presigned;
+
+        Page(ArtifactList list, List<ArtifactList.Entry> entries, int total, int number, int pageCount, String filter,
+             boolean presigned) {
+            this.list = list;
+            this.entries = entries;
+            this.total = total;
+            this.number = number;
+            this.pageCount = pageCount;
+            this.filter = filter;
+            this.presigned = presigned;
+        }
+
+        public List<ArtifactList.Entry> getEntries() {
+            return entries;
+        }
+
+        /**
+         * @return link to the object, relative to the action for private buckets
+         */
+        public String getUrl(ArtifactList.Entry entry) {
+            if (presigned && list.getObjectKey(entry) != null) {
+                return "download?index=" + entry.getIndex();
+            }
+            return list.getUrl(entry);
+        }
+
+        /**
+         * @return number of entries matching the filter
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        public int getPageCount() {
+            return pageCount;
+        }
+
+        public String getFilter() {
+            return filter;
+        }
+
+        /**
+         * @return query string of another page with the same filter
+         */
+        public String getQuery(int page) throws UnsupportedEncodingException {
+            String query = "?page=" + page;
+            return filter.isEmpty() ? query : query + "&filter=" + URLEncoder.encode(filter, "UTF-8");
+        }
+    }
+
+    public enum Status {
+        PENDING,
+        IN_PROGRESS,
+        DONE,
+        FAILED
     }
 }
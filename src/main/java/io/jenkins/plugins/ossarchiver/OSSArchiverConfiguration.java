@@ -1,8 +1,5 @@
 package io.jenkins.plugins.ossarchiver;
 
-import com.aliyun.oss.ClientConfiguration;
-import com.aliyun.oss.OSSClient;
-import com.aliyun.oss.common.auth.DefaultCredentialProvider;
 import com.cloudbees.plugins.credentials.CredentialsMatchers;
 import com.cloudbees.plugins.credentials.CredentialsProvider;
 import com.cloudbees.plugins.credentials.common.StandardListBoxModel;
@@ -11,20 +8,39 @@ import com.cloudbees.plugins.credentials.domains.DomainRequirement;
 import hudson.Extension;
 import hudson.ExtensionList;
 import hudson.model.Item;
+import hudson.model.Node;
 import hudson.security.ACL;
 import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
 import jenkins.model.GlobalConfiguration;
+import net.sf.json.JSONObject;
 import org.apache.commons.lang.StringUtils;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerRequest;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 @Extension
 public class OSSArchiverConfiguration extends GlobalConfiguration {
     private static final String DEFAULT_UPLOAD_FOLDER = "build/${JOB_NAME}/${BUILD_ID}/${BUILD_NUMBER}";
+    private static final int DEFAULT_UPLOAD_CONCURRENCY = 4;
+    private static final int DEFAULT_MULTIPART_THRESHOLD = 100;
+    private static final int DEFAULT_MULTIPART_PART_SIZE = 10;
+    private static final int DEFAULT_MAX_CONNECTIONS = 1024;
+    private static final int DEFAULT_CONNECTION_TIMEOUT = 50000;
+    private static final int DEFAULT_SOCKET_TIMEOUT = 50000;
+    private static final int DEFAULT_IDLE_CONNECTION_TIME = 60000;
+    private static final int DEFAULT_MAX_RETRIES = 3;
+    private static final int DEFAULT_RETRY_BASE_DELAY = 500;
+    private static final int DEFAULT_RETRY_BUDGET = 100;
+    private static final long MAX_RETRY_DELAY = 30000;
+    private static final int DEFAULT_PRESIGNED_URL_EXPIRY = 60;
+    private static final int DEFAULT_MAX_CLEANUP_RATE = 1000;
+    private static final int DEFAULT_PROGRESS_INTERVAL = 10;
+    private static final long MB = 1024 * 1024;
 
     public static OSSArchiverConfiguration get() {
         return ExtensionList.lookupSingleton(OSSArchiverConfiguration.class);
@@ -34,9 +50,32 @@ public class OSSArchiverConfiguration extends GlobalConfiguration {
     private String bucket;
     private String uploadFolder;
     private String credentialsId;
+    private boolean uploadFromAgent;
+    private boolean privateBucket;
+    private int presignedUrlExpiry;
+    private int uploadConcurrency;
+    private int multipartThreshold;
+    private int multipartPartSize;
+    private int maxConnections;
+    private int connectionTimeout;
+    private int socketTimeout;
+    private int idleConnectionTime;
+    private Integer maxRetries;
+    private int retryBaseDelay;
+    private int retryBudget;
+    private int maxConcurrentUploads;
+    private int maxUploadRate;
+    private int maxJobUploadRate;
+    private int maxNodeUploadRate;
+    private boolean cleanupDeletedBuilds;
+    private int reconcileInterval;
+    private int maxCleanupRate;
+    private int progressInterval;
+    private List<OSSTarget> targets;
 
     public OSSArchiverConfiguration() {
         load();
+        configureScheduler();
     }
 
     public String getEndPoint() {
@@ -86,6 +125,440 @@ public class OSSArchiverConfiguration extends GlobalConfiguration {
         save();
     }
 
+    public boolean isUploadFromAgent() {
+        return uploadFromAgent;
+    }
+
+    @DataBoundSetter
+    public void setUploadFromAgent(boolean uploadFromAgent) {
+        this.uploadFromAgent = uploadFromAgent;
+        save();
+    }
+
+    /**
+     * @return whether links to objects are pre-signed on demand instead of pointing at the objects directly
+     */
+    public boolean isPrivateBucket() {
+        return privateBucket;
+    }
+
+    @DataBoundSetter
+    public void setPrivateBucket(boolean privateBucket) {
+        this.privateBucket = privateBucket;
+        save();
+    }
+
+    /**
+     * @return minutes pre-signed links stay valid
+     */
+    public int getPresignedUrlExpiry() {
+        return presignedUrlExpiry;
+    }
+
+    public int getPresignedUrlExpiryOrDefault() {
+        if (presignedUrlExpiry <= 0) {
+            return DEFAULT_PRESIGNED_URL_EXPIRY;
+        }
+        return presignedUrlExpiry;
+    }
+
+    @DataBoundSetter
+    public void setPresignedUrlExpiry(int presignedUrlExpiry) {
+        this.presignedUrlExpiry = presignedUrlExpiry;
+        save();
+    }
+
+    public int getUploadConcurrency() {
+        return uploadConcurrency;
+    }
+
+    public int getUploadConcurrencyOrDefault() {
+        if (uploadConcurrency <= 0) {
+            return DEFAULT_UPLOAD_CONCURRENCY;
+        }
+        return uploadConcurrency;
+    }
+
+    @DataBoundSetter
+    public void setUploadConcurrency(int uploadConcurrency) {
+        this.uploadConcurrency = uploadConcurrency;
+        save();
+    }
+
+    public int getMultipartThreshold() {
+        return multipartThreshold;
+    }
+
+    /**
+     * @return size in MB above which files are sent with multipart upload
+     */
+    public int getMultipartThresholdOrDefault() {
+        if (multipartThreshold <= 0) {
+            return DEFAULT_MULTIPART_THRESHOLD;
+        }
+        return multipartThreshold;
+    }
+
+    @DataBoundSetter
+    public void setMultipartThreshold(int multipartThreshold) {
+        this.multipartThreshold = multipartThreshold;
+        save();
+    }
+
+    public int getMultipartPartSize() {
+        return multipartPartSize;
+    }
+
+    /**
+     * @return part size in MB of multipart uploads
+     */
+    public int getMultipartPartSizeOrDefault() {
+        if (multipartPartSize <= 0) {
+            return DEFAULT_MULTIPART_PART_SIZE;
+        }
+        return multipartPartSize;
+    }
+
+    @DataBoundSetter
+    public void setMultipartPartSize(int multipartPartSize) {
+        this.multipartPartSize = multipartPartSize;
+        save();
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getMaxConnectionsOrDefault() {
+        if (maxConnections <= 0) {
+            return DEFAULT_MAX_CONNECTIONS;
+        }
+        return maxConnections;
+    }
+
+    @DataBoundSetter
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+        save();
+    }
+
+    public int getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    public int getConnectionTimeoutOrDefault() {
+        if (connectionTimeout <= 0) {
+            return DEFAULT_CONNECTION_TIMEOUT;
+        }
+        return connectionTimeout;
+    }
+
+    @DataBoundSetter
+    public void setConnectionTimeout(int connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+        save();
+    }
+
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public int getSocketTimeoutOrDefault() {
+        if (socketTimeout <= 0) {
+            return DEFAULT_SOCKET_TIMEOUT;
+        }
+        return socketTimeout;
+    }
+
+    @DataBoundSetter
+    public void setSocketTimeout(int socketTimeout) {
+        this.socketTimeout = socketTimeout;
+        save();
+    }
+
+    public int getIdleConnectionTime() {
+        return idleConnectionTime;
+    }
+
+    public int getIdleConnectionTimeOrDefault() {
+        if (idleConnectionTime <= 0) {
+            return DEFAULT_IDLE_CONNECTION_TIME;
+        }
+        return idleConnectionTime;
+    }
+
+    @DataBoundSetter
+    public void setIdleConnectionTime(int idleConnectionTime) {
+        this.idleConnectionTime = idleConnectionTime;
+        save();
+    }
+
+    public Integer getMaxRetries() {
+        return maxRetries;
+    }
+
+    public int getMaxRetriesOrDefault() {
+        if (maxRetries == null || maxRetries < 0) {
+            return DEFAULT_MAX_RETRIES;
+        }
+        return maxRetries;
+    }
+
+    @DataBoundSetter
+    public void setMaxRetries(Integer maxRetries) {
+        this.maxRetries = maxRetries;
+        save();
+    }
+
+    public int getRetryBaseDelay() {
+        return retryBaseDelay;
+    }
+
+    public int getRetryBaseDelayOrDefault() {
+        if (retryBaseDelay <= 0) {
+            return DEFAULT_RETRY_BASE_DELAY;
+        }
+        return retryBaseDelay;
+    }
+
+    @DataBoundSetter
+    public void setRetryBaseDelay(int retryBaseDelay) {
+        this.retryBaseDelay = retryBaseDelay;
+        save();
+    }
+
+    public int getRetryBudget() {
+        return retryBudget;
+    }
+
+    public int getRetryBudgetOrDefault() {
+        if (retryBudget <= 0) {
+            return DEFAULT_RETRY_BUDGET;
+        }
+        return retryBudget;
+    }
+
+    @DataBoundSetter
+    public void setRetryBudget(int retryBudget) {
+        this.retryBudget = retryBudget;
+        save();
+    }
+
+    /**
+     * @return file uploads allowed at the same time across all builds, 0 for unlimited
+     */
+    public int getMaxConcurrentUploads() {
+        return maxConcurrentUploads;
+    }
+
+    @DataBoundSetter
+    public void setMaxConcurrentUploads(int maxConcurrentUploads) {
+        this.maxConcurrentUploads = maxConcurrentUploads;
+        save();
+    }
+
+    /**
+     * @return MB per second across all builds, 0 for unlimited
+     */
+    public int getMaxUploadRate() {
+        return maxUploadRate;
+    }
+
+    @DataBoundSetter
+    public void setMaxUploadRate(int maxUploadRate) {
+        this.maxUploadRate = maxUploadRate;
+        save();
+    }
+
+    /**
+     * @return MB per second of all builds of one job, 0 for unlimited
+     */
+    public int getMaxJobUploadRate() {
+        return maxJobUploadRate;
+    }
+
+    @DataBoundSetter
+    public void setMaxJobUploadRate(int maxJobUploadRate) {
+        this.maxJobUploadRate = maxJobUploadRate;
+        save();
+    }
+
+    /**
+     * @return MB per second of all uploads from one node, 0 for unlimited
+     */
+    public int getMaxNodeUploadRate() {
+        return maxNodeUploadRate;
+    }
+
+    @DataBoundSetter
+    public void setMaxNodeUploadRate(int maxNodeUploadRate) {
+        this.maxNodeUploadRate = maxNodeUploadRate;
+        save();
+    }
+
+    /**
+     * @return whether the objects of a build are deleted when Jenkins deletes the build
+     */
+    public boolean isCleanupDeletedBuilds() {
+        return cleanupDeletedBuilds;
+    }
+
+    @DataBoundSetter
+    public void setCleanupDeletedBuilds(boolean cleanupDeletedBuilds) {
+        this.cleanupDeletedBuilds = cleanupDeletedBuilds;
+        save();
+    }
+
+    /**
+     * @return hours between two searches for objects of deleted builds, 0 to never search
+     */
+    public int getReconcileInterval() {
+        return reconcileInterval;
+    }
+
+    @DataBoundSetter
+    public void setReconcileInterval(int reconcileInterval) {
+        this.reconcileInterval = reconcileInterval;
+        save();
+    }
+
+    public int getMaxCleanupRate() {
+        return maxCleanupRate;
+    }
+
+    /**
+     * @return objects deleted per second by the cleanup of deleted builds
+     */
+    public int getMaxCleanupRateOrDefault() {
+        if (maxCleanupRate <= 0) {
+            return DEFAULT_MAX_CLEANUP_RATE;
+        }
+        return maxCleanupRate;
+    }
+
+    @DataBoundSetter
+    public void setMaxCleanupRate(int maxCleanupRate) {
+        this.maxCleanupRate = maxCleanupRate;
+        save();
+    }
+
+    public int getProgressInterval() {
+        return progressInterval;
+    }
+
+    /**
+     * @return seconds between the progress summaries of a publish
+     */
+    public int getProgressIntervalOrDefault() {
+        if (progressInterval <= 0) {
+            return DEFAULT_PROGRESS_INTERVAL;
+        }
+        return progressInterval;
+    }
+
+    @DataBoundSetter
+    public void setProgressInterval(int progressInterval) {
+        this.progressInterval = progressInterval;
+        save();
+    }
+
+    /**
+     * @return named targets besides the default one
+     */
+    public List<OSSTarget> getTargets() {
+        return targets != null ? targets : Collections.emptyList();
+    }
+
+    @DataBoundSetter
+    public void setTargets(List<OSSTarget> targets) {
+        this.targets = targets != null ? new ArrayList<>(targets) : null;
+        save();
+    }
+
+    /**
+     * @return the endpoint, bucket and credentials configured above the named targets
+     */
+    public OSSTarget getDefaultTarget() {
+        return new OSSTarget("", endPoint, bucket, credentialsId);
+    }
+
+    /**
+     * @param name name of a target, blank for the default target
+     */
+    public OSSTarget getTarget(String name) {
+        if (StringUtils.isBlank(name)) {
+            return getDefaultTarget();
+        }
+        for (OSSTarget target : getTargets()) {
+            if (target.getName().equals(name.trim())) {
+                return target;
+            }
+        }
+        throw new IllegalArgumentException("Unknown OSS target: " + name);
+    }
+
+    /**
+     * @param name name of a target, blank to pick the first target whose label matches {@code node}, or else the
+     *             default target
+     * @param node node of the workspace, null when unknown
+     */
+    public OSSTarget resolveTarget(String name, Node node) {
+        if (StringUtils.isNotBlank(name)) {
+            return getTarget(name);
+        }
+        for (OSSTarget target : getTargets()) {
+            if (target.matches(node)) {
+                return target;
+            }
+        }
+        return getDefaultTarget();
+    }
+
+    private void configureScheduler() {
+        UploadScheduler.configure(maxConcurrentUploads, maxUploadRate * MB, maxJobUploadRate * MB, maxNodeUploadRate * MB);
+        ArtifactCleaner.configure(getMaxCleanupRateOrDefault());
+    }
+
+    public RetryPolicy createRetryPolicy() {
+        return new RetryPolicy(getMaxRetriesOrDefault(), getRetryBaseDelayOrDefault(), MAX_RETRY_DELAY, getRetryBudgetOrDefault());
+    }
+
+    public OSSClientSettings createClientSettings(String endPoint, String credentialsId, StandardUsernamePasswordCredentials credentials) {
+        OSSClientSettings settings = new OSSClientSettings(endPoint, credentialsId,
+                credentials.getUsername(), credentials.getPassword().getPlainText());
+        settings.setMaxConnections(getMaxConnectionsOrDefault());
+        settings.setConnectionTimeout(getConnectionTimeoutOrDefault());
+        settings.setSocketTimeout(getSocketTimeoutOrDefault());
+        settings.setIdleConnectionTime(getIdleConnectionTimeOrDefault());
+        return settings;
+    }
+
+    public OSSClientSettings createClientSettings(OSSTarget target, StandardUsernamePasswordCredentials credentials) {
+        OSSClientSettings settings = createClientSettings(target.getEndPoint(), target.getCredentialsId(), credentials);
+        if (target.getMaxConnections() > 0) {
+            settings.setMaxConnections(target.getMaxConnections());
+        }
+        return settings;
+    }
+
+    /**
+     * @return files uploaded to {@code target} at the same time
+     */
+    public int getUploadConcurrency(OSSTarget target) {
+        return target.getUploadConcurrency() > 0 ? target.getUploadConcurrency() : getUploadConcurrencyOrDefault();
+    }
+
+    @Override
+    public boolean configure(StaplerRequest req, JSONObject json) throws FormException {
+        // An empty repeatable is not submitted at all
+        targets = null;
+        boolean result = super.configure(req, json);
+        OSSClientCache.invalidateAll();
+        PresignedUrlCache.invalidateAll();
+        configureScheduler();
+        return result;
+    }
+
     public FormValidation doCheckEndPoint(@QueryParameter String value) {
         if (StringUtils.isEmpty(value)) {
             return FormValidation.warning(Messages.Configuration_MissingEndPoint());
@@ -100,6 +573,106 @@ public class OSSArchiverConfiguration extends GlobalConfiguration {
         return FormValidation.ok();
     }
 
+    public FormValidation doCheckUploadConcurrency(@QueryParameter String value) {
+        return checkPositiveInteger(value);
+    }
+
+    public FormValidation doCheckMaxConnections(@QueryParameter String value) {
+        return checkPositiveInteger(value);
+    }
+
+    public FormValidation doCheckConnectionTimeout(@QueryParameter String value) {
+        return checkPositiveInteger(value);
+    }
+
+    public FormValidation doCheckSocketTimeout(@QueryParameter String value) {
+        return checkPositiveInteger(value);
+    }
+
+    public FormValidation doCheckIdleConnectionTime(@QueryParameter String value) {
+        return checkPositiveInteger(value);
+    }
+
+    public FormValidation doCheckMultipartThreshold(@QueryParameter String value) {
+        return checkPositiveInteger(value);
+    }
+
+    public FormValidation doCheckMultipartPartSize(@QueryParameter String value) {
+        return checkPositiveInteger(value);
+    }
+
+    public FormValidation doCheckMaxConcurrentUploads(@QueryParameter String value) {
+        return checkNonNegativeInteger(value);
+    }
+
+    public FormValidation doCheckMaxUploadRate(@QueryParameter String value) {
+        return checkNonNegativeInteger(value);
+    }
+
+    public FormValidation doCheckMaxJobUploadRate(@QueryParameter String value) {
+        return checkNonNegativeInteger(value);
+    }
+
+    public FormValidation doCheckMaxNodeUploadRate(@QueryParameter String value) {
+        return checkNonNegativeInteger(value);
+    }
+
+    public FormValidation doCheckMaxRetries(@QueryParameter String value) {
+        return checkNonNegativeInteger(value);
+    }
+
+    public FormValidation doCheckRetryBaseDelay(@QueryParameter String value) {
+        return checkPositiveInteger(value);
+    }
+
+    public FormValidation doCheckRetryBudget(@QueryParameter String value) {
+        return checkPositiveInteger(value);
+    }
+
+    public FormValidation doCheckPresignedUrlExpiry(@QueryParameter String value) {
+        return checkPositiveInteger(value);
+    }
+
+    public FormValidation doCheckReconcileInterval(@QueryParameter String value) {
+        return checkNonNegativeInteger(value);
+    }
+
+    public FormValidation doCheckMaxCleanupRate(@QueryParameter String value) {
+        return checkPositiveInteger(value);
+    }
+
+    public FormValidation doCheckProgressInterval(@QueryParameter String value) {
+        return checkPositiveInteger(value);
+    }
+
+    static FormValidation checkNonNegativeInteger(String value) {
+        if (StringUtils.isBlank(value)) {
+            return FormValidation.ok();
+        }
+        try {
+            if (Integer.parseInt(value.trim()) < 0) {
+                return FormValidation.error(Messages.Configuration_InvalidNonNegativeInteger());
+            }
+        } catch (NumberFormatException e) {
+            return FormValidation.error(Messages.Configuration_InvalidNonNegativeInteger());
+        }
+        return FormValidation.ok();
+    }
+
+    static FormValidation checkPositiveInteger(String value) {
+        if (StringUtils.isBlank(value)) {
+            return FormValidation.ok();
+        }
+        try {
+            if (Integer.parseInt(value.trim()) < 1) {
+                return FormValidation.error(Messages.Configuration_InvalidPositiveInteger());
+            }
+        } catch (NumberFormatException e) {
+            return FormValidation.error(Messages.Configuration_InvalidPositiveInteger());
+        }
+        return FormValidation.ok();
+    }
+
     public ListBoxModel doFillCredentialsIdItems(@QueryParameter String credentialsId) {
         return new StandardListBoxModel()
                 .includeMatchingAs(
@@ -136,11 +709,9 @@ public class OSSArchiverConfiguration extends GlobalConfiguration {
             if (targetCredentials == null) {
                 throw new IllegalArgumentException(Messages.Configuration_CredentialsNotFound(credentialsId));
             }
-            OSSClient ossClient = new OSSClient(endPoint,
-                    new DefaultCredentialProvider(targetCredentials.getUsername(), targetCredentials.getPassword().getPlainText()),
-                    new ClientConfiguration()
-            );
-            ossClient.listObjects(bucket);
+            try (OSSClientCache.Lease lease = OSSClientCache.acquire(createClientSettings(endPoint, credentialsId, targetCredentials))) {
+                lease.getClient().listObjects(bucket);
+            }
             return FormValidation.ok(Messages.Configuration_CredentialsValidateSuccessful());
         } catch (Exception e) {
             return FormValidation.error(e, Messages.Configuration_CredentialsValidateError());
@@ -2,15 +2,53 @@ package io.jenkins.plugins.ossarchiver;
 
 import hudson.model.TaskListener;
 
+/**
+ * Writes to the build log.
+ * <p>
+ * Lines about single files go through {@link #file}: they are only printed in verbose mode, and then buffered and
+ * written in batches by {@link #flush()}, so a publish of many files does not write to a possibly remote log once
+ * per file. Every other line flushes the buffer first to keep the order.
+ */
 public class OSSArchiverLogger {
     private static final String TAG = "OSSArchiver";
+    private static final int MAX_BUFFERED = 64 * 1024;
 
     private final TaskListener listener;
+    private final StringBuilder buffer = new StringBuilder();
+    private volatile boolean verbose;
 
     public OSSArchiverLogger(TaskListener listener) {
         this.listener = listener;
     }
 
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    /**
+     * @param verbose whether to print a line for every file, otherwise only {@link UploadProgress} summaries
+     */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /**
+     * Buffers a line about a single file, dropped unless verbose.
+     */
+    public void file(String message) {
+        if (!verbose) {
+            return;
+        }
+        boolean full;
+        synchronized (buffer) {
+            buffer.append(format("INFO", message)).append('\n');
+            full = buffer.length() >= MAX_BUFFERED;
+        }
+        if (full) {
+            flush();
+        }
+    }
+
     public void info(String message) {
         println("INFO", message, null);
     }
@@ -35,10 +73,35 @@ public class OSSArchiverLogger {
         println("ERROR", message, throwable);
     }
 
+    /**
+     * Writes the buffered file lines with a single write.
+     */
+    public void flush() {
+        // Taking the buffer and writing it under one lock keeps batches of concurrent flushes in order
+        synchronized (this) {
+            String lines;
+            synchronized (buffer) {
+                if (buffer.length() == 0) {
+                    return;
+                }
+                lines = buffer.toString();
+                buffer.setLength(0);
+            }
+            listener.getLogger().print(lines);
+        }
+    }
+
     private void println(String level, String message, Throwable throwable) {
-        listener.getLogger().println("[" + TAG + "][" + level + "]" + message);
-        if (throwable != null) {
-            throwable.printStackTrace(listener.getLogger());
+        synchronized (this) {
+            flush();
+            listener.getLogger().println(format(level, message));
+            if (throwable != null) {
+                throwable.printStackTrace(listener.getLogger());
+            }
         }
     }
+
+    private static String format(String level, String message) {
+        return "[" + TAG + "][" + level + "]" + message;
+    }
 }
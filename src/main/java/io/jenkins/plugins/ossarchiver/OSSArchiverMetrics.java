@@ -0,0 +1,121 @@
+package io.jenkins.plugins.ossarchiver;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import jenkins.metrics.api.Metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller wide metrics of the archiver, registered with the metrics plugin under {@code oss-archiver.*}.
+ * <p>
+ * Bytes, latency and failures are recorded from the {@link UploadReport} of every publish, so they also cover
+ * uploads from agents. Active and queued uploads are tracked live, for uploads from agents by the
+ * {@link MonitoredGate} they take their slots through, and client cache hits only count clients cached in the
+ * controller JVM.
+ */
+public final class OSSArchiverMetrics {
+    private static final String PREFIX = "oss-archiver.";
+
+    private OSSArchiverMetrics() {
+    }
+
+    private static MetricRegistry registry() {
+        return Metrics.metricRegistry();
+    }
+
+    public static Meter bytes() {
+        return registry().meter(PREFIX + "upload.bytes");
+    }
+
+    public static Meter files() {
+        return registry().meter(PREFIX + "upload.files");
+    }
+
+    public static Counter active() {
+        return registry().counter(PREFIX + "upload.active");
+    }
+
+    public static Counter queued() {
+        return registry().counter(PREFIX + "upload.queued");
+    }
+
+    public static Histogram latency() {
+        return registry().histogram(PREFIX + "upload.latency");
+    }
+
+    public static Meter failures(String errorCode) {
+        return registry().meter(PREFIX + "upload.failures." + errorCode);
+    }
+
+    /**
+     * Registers the gauges reading {@link OSSClientCache} counters, safe to call more than once.
+     */
+    @SuppressWarnings("rawtypes")
+    public static void registerGauges() {
+        MetricRegistry registry = registry();
+        Map<String, Gauge> gauges = registry.getGauges();
+        if (!gauges.containsKey(PREFIX + "client-cache.hits")) {
+            registry.register(PREFIX + "client-cache.hits", (Gauge<Long>) OSSClientCache::getHits);
+        }
+        if (!gauges.containsKey(PREFIX + "client-cache.misses")) {
+            registry.register(PREFIX + "client-cache.misses", (Gauge<Long>) OSSClientCache::getMisses);
+        }
+    }
+
+    /**
+     * Tracks the uploads of one publish running on the controller.
+     */
+    public static UploadMonitor monitor() {
+        Counter queued = queued();
+        Counter active = active();
+        return new UploadMonitor() {
+            @Override
+            public void queued() {
+                queued.inc();
+            }
+
+            @Override
+            public void started() {
+                queued.dec();
+                active.inc();
+            }
+
+            @Override
+            public void dropped() {
+                queued.dec();
+            }
+
+            @Override
+            public void finished() {
+                active.dec();
+            }
+        };
+    }
+
+    public static void record(UploadReport report) {
+        registerGauges();
+        Meter bytes = bytes();
+        Meter files = files();
+        Histogram latency = latency();
+        for (List<UploadResult> items : report.getFolders().values()) {
+            for (UploadResult item : items) {
+                if (item.getDuration() < 0) {
+                    continue;
+                }
+                files.mark();
+                latency.update(item.getDuration());
+                if (!item.isDeduplicated()) {
+                    bytes.mark(item.getSize());
+                }
+            }
+        }
+        for (Map.Entry<String, Integer> entry : report.getFailures().entrySet()) {
+            failures(entry.getKey()).mark(entry.getValue());
+        }
+    }
+}
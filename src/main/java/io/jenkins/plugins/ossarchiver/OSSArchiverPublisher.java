@@ -1,8 +1,5 @@
 package io.jenkins.plugins.ossarchiver;
 
-import com.aliyun.oss.ClientConfiguration;
-import com.aliyun.oss.OSSClient;
-import com.aliyun.oss.common.auth.DefaultCredentialProvider;
 import com.cloudbees.plugins.credentials.CredentialsProvider;
 import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
 import edu.umd.cs.findbugs.annotations.NonNull;
@@ -10,34 +7,40 @@ import hudson.EnvVars;
 import hudson.Extension;
 import hudson.FilePath;
 import hudson.Launcher;
+import hudson.Util;
 import hudson.model.*;
 import hudson.tasks.BuildStepDescriptor;
 import hudson.tasks.Publisher;
 import hudson.tasks.Recorder;
 import hudson.util.FormValidation;
-import jenkins.model.Jenkins;
+import hudson.util.ListBoxModel;
 import jenkins.tasks.SimpleBuildStep;
 import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 import org.jenkinsci.Symbol;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.QueryParameter;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.Serializable;
-import java.net.URI;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.TimeUnit;
 
 public class OSSArchiverPublisher extends Recorder implements SimpleBuildStep {
-    private static final Pattern ABSOLUTE_PREFIX_PATTERN = Pattern.compile("^(\\\\\\\\|(?:[A-Za-z]:)?[\\\\/])[\\\\/]*");
+    private static final long MB = 1024 * 1024;
 
     private List<ArtifactConfig> artifacts;
+    private Integer concurrency;
+    private boolean deduplicate;
+    private String uploadFolder;
+    private boolean sync;
+    private boolean deleteOrphans;
+    private String failureResult;
+    private boolean async;
+    private boolean verifyChecksums;
+    private String target;
+    private String mirrors;
+    private boolean verboseLog;
 
     @DataBoundConstructor
     public OSSArchiverPublisher(List<ArtifactConfig> artifacts) {
@@ -53,6 +56,114 @@ public class OSSArchiverPublisher extends Recorder implements SimpleBuildStep {
         return artifacts;
     }
 
+    public Integer getConcurrency() {
+        return concurrency;
+    }
+
+    @DataBoundSetter
+    public void setConcurrency(Integer concurrency) {
+        this.concurrency = concurrency == null || concurrency <= 0 ? null : concurrency;
+    }
+
+    public boolean isDeduplicate() {
+        return deduplicate;
+    }
+
+    @DataBoundSetter
+    public void setDeduplicate(boolean deduplicate) {
+        this.deduplicate = deduplicate;
+    }
+
+    public String getUploadFolder() {
+        return uploadFolder;
+    }
+
+    @DataBoundSetter
+    public void setUploadFolder(String uploadFolder) {
+        this.uploadFolder = Util.fixEmptyAndTrim(uploadFolder);
+    }
+
+    public boolean isSync() {
+        return sync;
+    }
+
+    @DataBoundSetter
+    public void setSync(boolean sync) {
+        this.sync = sync;
+    }
+
+    public boolean isDeleteOrphans() {
+        return deleteOrphans;
+    }
+
+    @DataBoundSetter
+    public void setDeleteOrphans(boolean deleteOrphans) {
+        this.deleteOrphans = deleteOrphans;
+    }
+
+    /**
+     * @return name of the {@link Result} a build gets when files could not be uploaded
+     */
+    public String getFailureResult() {
+        return failureResult != null ? failureResult : Result.UNSTABLE.toString();
+    }
+
+    @DataBoundSetter
+    public void setFailureResult(String failureResult) {
+        this.failureResult = Util.fixEmptyAndTrim(failureResult);
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    @DataBoundSetter
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public boolean isVerifyChecksums() {
+        return verifyChecksums;
+    }
+
+    @DataBoundSetter
+    public void setVerifyChecksums(boolean verifyChecksums) {
+        this.verifyChecksums = verifyChecksums;
+    }
+
+    /**
+     * @return name of the {@link OSSTarget} to upload to, null to pick it by the label of the agent
+     */
+    public String getTarget() {
+        return target;
+    }
+
+    @DataBoundSetter
+    public void setTarget(String target) {
+        this.target = Util.fixEmptyAndTrim(target);
+    }
+
+    /**
+     * @return comma separated names of the targets every object is also uploaded to, null for none
+     */
+    public String getMirrors() {
+        return mirrors;
+    }
+
+    @DataBoundSetter
+    public void setMirrors(String mirrors) {
+        this.mirrors = Util.fixEmptyAndTrim(mirrors);
+    }
+
+    public boolean isVerboseLog() {
+        return verboseLog;
+    }
+
+    @DataBoundSetter
+    public void setVerboseLog(boolean verboseLog) {
+        this.verboseLog = verboseLog;
+    }
+
     @Override
     public void perform(
             @NonNull Run<?, ?> run,
@@ -61,198 +172,275 @@ public class OSSArchiverPublisher extends Recorder implements SimpleBuildStep {
             @NonNull Launcher launcher,
             @NonNull TaskListener listener
     ) throws InterruptedException, IOException {
+        archive(run, workspace, env, listener);
+    }
+
+    /**
+     * Publishes like {@link #archive(Run, FilePath, EnvVars, OSSArchiverLogger, TaskListener)}, logging a publish
+     * that could not run and marking the build with {@link #getFailureResult()} instead of throwing.
+     */
+    private void archive(Run<?, ?> run, FilePath workspace, EnvVars env, TaskListener listener) {
         OSSArchiverLogger logger = new OSSArchiverLogger(listener);
         try {
-            Map<FilePath, List<FilePath>> actualArtifacts = findActualArtifacts(workspace);
-            if (actualArtifacts.isEmpty()) {
-                logger.warn("No artifacts matched, return");
-                return;
-            }
-
-            OSSArchiverConfiguration configuration = parseConfiguration();
-            String uploadFolder = configuration.getUploadFolderOrDefault();
-            String actualUploadFolder = env.expand(uploadFolder);
-
-            StandardUsernamePasswordCredentials credentials = findCredentials(configuration.getCredentialsId(), run);
-
-            Map<String, List<Pair<String, String>>> result = uploadFiles(
-                    configuration,
-                    actualArtifacts,
-                    workspace,
-                    actualUploadFolder,
-                    credentials,
-                    logger
-            );
-
-            run.addAction(new OSSArchiverAction(result));
+            archive(run, workspace, env, logger, listener);
         } catch (Exception e) {
             logger.error("Publish exception", e);
+            run.setResult(Result.fromString(getFailureResult()));
         }
     }
 
-    private Map<FilePath, List<FilePath>> findActualArtifacts(FilePath workspace) throws IOException, InterruptedException {
-        Map<FilePath, List<FilePath>> actualArtifacts = new LinkedHashMap<>(artifacts.size());
-        for (ArtifactConfig config : artifacts) {
-            String folder = config.folder;
-            if (folder.startsWith("/")) {
-                continue;
-            }
-            String filename = config.filename;
-            if (StringUtils.isBlank(filename)) {
-                filename = "";
+    /**
+     * Publishes the artifacts, marking the build with {@link #getFailureResult()} when files failed.
+     *
+     * @return report of the upload, null when it was queued in the background
+     */
+    UploadReport archive(Run<?, ?> run, FilePath workspace, EnvVars env, OSSArchiverLogger logger, TaskListener listener)
+            throws IOException, InterruptedException {
+        long startTime = System.currentTimeMillis();
+        OSSArchiverConfiguration configuration = OSSArchiverConfiguration.get();
+        String actualUploadFolder = env.expand(uploadFolder != null ? uploadFolder : configuration.getUploadFolderOrDefault());
+        Map<OSSTarget, List<ArtifactConfig>> routes = route(configuration, workspace);
+        if (async) {
+            if (routes.size() > 1) {
+                throw new IllegalArgumentException("Asynchronous publishes upload to a single target, artifacts go to " + routes.keySet());
             }
-            FilePath folderFile = new FilePath(workspace, folder);
-            if (!folderFile.isDirectory()) {
-                continue;
+            stage(run, workspace, actualUploadFolder, routes.keySet().iterator().next(), logger);
+            return null;
+        }
+
+        // A target failing after others were uploaded to would leave their objects on no action
+        for (OSSTarget routeTarget : routes.keySet()) {
+            checkTarget(routeTarget);
+            findCredentials(routeTarget.getCredentialsId(), run);
+        }
+        for (OSSTarget mirror : sync ? Collections.<OSSTarget>emptyList() : getMirrorTargets(configuration)) {
+            checkTarget(mirror);
+            findCredentials(mirror.getCredentialsId(), run);
+        }
+
+        UploadReport report = null;
+        for (Map.Entry<OSSTarget, List<ArtifactConfig>> route : routes.entrySet()) {
+            OSSArchiverAction action = new OSSArchiverAction();
+            action.setTarget(Util.fixEmpty(route.getKey().getName()));
+            UploadReport targetReport = publish(configuration, route.getKey(), run, workspace, route.getValue(), false,
+                    actualUploadFolder, action, logger, listener);
+            if (!targetReport.isEmpty()) {
+                // Added right away, so the objects stay known even when a later target fails
+                run.addAction(action);
             }
-            FilePath[] files = folderFile.list(filename);
-            if (files.length == 0) {
-                continue;
+            if (report == null) {
+                report = targetReport;
+            } else {
+                report.merge(targetReport);
+                report.setStatistics(UploadStatistics.of(report, System.currentTimeMillis() - startTime,
+                        getChecksumTime(report.getStatistics()) + getChecksumTime(targetReport.getStatistics())));
             }
-            actualArtifacts.put(folderFile, Arrays.asList(files));
         }
-        return actualArtifacts;
+        int failed = report.getFailureCount();
+        if (failed > 0) {
+            logger.error(failed + " files failed to upload " + report.getFailures() + ", marking the build " + getFailureResult());
+            run.setResult(Result.fromString(getFailureResult()));
+        }
+        if (report.isEmpty()) {
+            logger.warn("No artifacts matched, return");
+        }
+        return report;
     }
 
-    private OSSArchiverConfiguration parseConfiguration() {
-        OSSArchiverConfiguration configuration = Jenkins.get().getDescriptorByType(OSSArchiverConfiguration.class);
-        if (configuration == null || StringUtils.isEmpty(configuration.getBucket())
-                || StringUtils.isEmpty(configuration.getEndPoint()) || StringUtils.isEmpty(configuration.getCredentialsId())) {
-            throw new IllegalArgumentException("Invalid configuration");
+    /**
+     * Groups the artifacts by the target they are uploaded to, in the order of their first artifact.
+     */
+    private Map<OSSTarget, List<ArtifactConfig>> route(OSSArchiverConfiguration configuration, FilePath workspace) {
+        Computer computer = workspace.toComputer();
+        Node node = computer != null ? computer.getNode() : null;
+        OSSTarget jobTarget = configuration.resolveTarget(target, node);
+        Map<String, OSSTarget> targets = new HashMap<>();
+        Map<OSSTarget, List<ArtifactConfig>> routes = new LinkedHashMap<>();
+        if (artifacts == null || artifacts.isEmpty()) {
+            routes.put(jobTarget, new ArrayList<>());
+            return routes;
         }
-        return configuration;
+        for (ArtifactConfig artifact : artifacts) {
+            String name = artifact.getTarget() != null ? artifact.getTarget() : jobTarget.getName();
+            // One instance per name, as the default target is created on every call
+            OSSTarget artifactTarget = targets.computeIfAbsent(name,
+                    k -> k.equals(jobTarget.getName()) ? jobTarget : configuration.getTarget(k));
+            routes.computeIfAbsent(artifactTarget, k -> new ArrayList<>()).add(artifact);
+        }
+        return routes;
     }
 
-    private StandardUsernamePasswordCredentials findCredentials(String credentialsId, Run<?, ?> run) {
-        StandardUsernamePasswordCredentials credentials = CredentialsProvider.findCredentialById(credentialsId, StandardUsernamePasswordCredentials.class, run);
-        if (credentials == null) {
-            throw new IllegalArgumentException("Credentials not found: id=" + credentialsId);
-        }
-        return credentials;
+    private static long getChecksumTime(UploadStatistics statistics) {
+        return statistics != null ? statistics.getChecksumTime() : 0;
     }
 
-    private Map<String, List<Pair<String, String>>> uploadFiles(
-            OSSArchiverConfiguration configuration,
-            Map<FilePath, List<FilePath>> actualArtifacts,
-            FilePath workspace,
-            String uploadFolder,
-            StandardUsernamePasswordCredentials credentials,
-            OSSArchiverLogger logger
-    ) {
-        OSSClient ossClient = new OSSClient(configuration.getEndPoint(),
-                new DefaultCredentialProvider(credentials.getUsername(), credentials.getPassword().getPlainText()),
-                new ClientConfiguration()
+    /**
+     * Uploads the artifacts to {@code target} and fills {@code action} with the result.
+     *
+     * @param staged whether {@code workspace} is a staging folder of {@link StageCallable}
+     */
+    UploadReport publish(OSSArchiverConfiguration configuration, OSSTarget target, Run<?, ?> run, FilePath workspace,
+                         List<ArtifactConfig> artifacts, boolean staged, String actualUploadFolder, OSSArchiverAction action,
+                         OSSArchiverLogger logger, TaskListener listener) throws IOException, InterruptedException {
+        checkTarget(target);
+        StandardUsernamePasswordCredentials credentials = findCredentials(target.getCredentialsId(), run);
+
+        UploadOptions options = new UploadOptions(
+                configuration.createClientSettings(target, credentials),
+                target.getBucket(),
+                actualUploadFolder
         );
-        Map<String, List<Pair<String, String>>> result = new LinkedHashMap<>(actualArtifacts.size());
-        for (Map.Entry<FilePath, List<FilePath>> entry : actualArtifacts.entrySet()) {
-            List<Pair<String, String>> items = new ArrayList<>(entry.getValue().size());
-            FilePath folderPath = entry.getKey();
-            String folder = getRelativePath(folderPath, workspace);
-            if (folder == null) {
-                continue;
+        options.setConcurrency(concurrency != null ? concurrency : configuration.getUploadConcurrency(target));
+        options.setMultipartThreshold(configuration.getMultipartThresholdOrDefault() * MB);
+        options.setMultipartPartSize(configuration.getMultipartPartSizeOrDefault() * MB);
+        options.setDeduplicate(deduplicate);
+        options.setSync(sync);
+        options.setDeleteOrphans(deleteOrphans);
+        options.setRetryPolicy(configuration.createRetryPolicy());
+        options.setStaged(staged);
+        options.setVerifyChecksums(verifyChecksums);
+        options.setVerboseLog(verboseLog);
+        options.setProgressInterval(TimeUnit.SECONDS.toMillis(configuration.getProgressIntervalOrDefault()));
+        addMirrors(configuration, target, run, options, logger);
+
+        Computer computer = workspace.toComputer();
+        UploadReport report;
+        UploadScheduler.startPublish();
+        try (UploadScheduler.Session session = UploadScheduler.open(run.getParent().getFullName(),
+                computer != null ? computer.getName() : "")) {
+            if (configuration.isUploadFromAgent()) {
+                // The uploader on the agent has no metrics, the controller side of the gate tracks its uploads
+                UploadGate gate = workspace.getChannel().export(UploadGate.class,
+                        new MonitoredGate(session, OSSArchiverMetrics.monitor()));
+                report = workspace.act(new UploadCallable(options, artifacts, listener, gate, session != null));
+            } else {
+                OSSUploader uploader = new OSSUploader(options, logger);
+                uploader.setMonitor(OSSArchiverMetrics.monitor());
+                uploader.setGate(session);
+                report = uploader.upload(workspace, artifacts);
             }
-            for (FilePath filePath : entry.getValue()) {
-                String file = getRelativePath(filePath, folderPath);
-                if (file == null) {
-                    continue;
-                }
-                String key = normalize(uploadFolder + "/" + folder.replace(File.separator, "/") + "/" + file.replace(File.separator, "/"));
-                try (InputStream inputStream = filePath.read()) {
-                    logger.info("Uploading: " + key);
-                    ossClient.putObject(configuration.getBucket(), key, inputStream);
-                    String url = makeUrl(ossClient, configuration.getBucket(), key);
-                    Pair<String, String> item = new ImmutablePair<>(file, url);
-                    items.add(item);
-                } catch (Exception e) {
-                    logger.warn("Upload failed: " + key, e);
-                }
+        } finally {
+            UploadScheduler.endPublish();
+        }
+        OSSArchiverMetrics.record(report);
+        UploadStatistics statistics = report.getStatistics();
+        if (statistics != null && !report.isEmpty()) {
+            logger.info("Upload summary: " + statistics.getSummary());
+            for (UploadStatistics.SlowFile slowFile : statistics.getSlowest()) {
+                logger.info(String.format("  %dms %s (%d bytes)", slowFile.getDuration(), slowFile.getKey(), slowFile.getSize()));
             }
-            result.put(folder, items);
         }
-        return result;
+        if (!report.isEmpty()) {
+            action.setArtifacts(run, ArtifactList.of(report));
+        }
+        if (report.getChecksumsUrl() != null) {
+            logger.info("Checksums: " + report.getChecksumsUrl());
+        }
+        report.getMirrored().forEach((name, count) -> logger.info("Mirrored " + count + " objects to " + name));
+        action.setBytesSaved(report.getBytesSaved());
+        action.setStatistics(statistics);
+        action.setChecksumsUrl(report.getChecksumsUrl());
+        action.setSync(sync);
+        List<String> mirrorNames = new ArrayList<>(options.getMirrors().size());
+        for (UploadOptions.Mirror mirror : options.getMirrors()) {
+            mirrorNames.add(mirror.getName());
+        }
+        action.setMirrors(mirrorNames);
+        return report;
     }
 
-    private String getRelativePath(FilePath file, FilePath parent) {
-        String filePath = file.getRemote();
-        String parentPath = parent.getRemote();
-        if (filePath.startsWith(parentPath)) {
-            String result = filePath.substring(parentPath.length());
-            if (result.startsWith(File.separator)) {
-                return result.substring(1);
-            }
-            return result;
+    /**
+     * Copies the matched files aside on the workspace node and queues their upload, so the build can go on.
+     */
+    private void stage(Run<?, ?> run, FilePath workspace, String actualUploadFolder, OSSTarget target, OSSArchiverLogger logger) throws IOException, InterruptedException {
+        checkTarget(target);
+        Computer computer = workspace.toComputer();
+        Node node = computer != null ? computer.getNode() : null;
+        FilePath nodeRoot = node != null ? node.getRootPath() : null;
+        if (nodeRoot == null) {
+            throw new IOException("Node of the workspace is offline: " + workspace.getRemote());
+        }
+        String id = UUID.randomUUID().toString();
+        FilePath stagingDir = nodeRoot.child(AsyncUploadQueue.STAGING_FOLDER).child(id);
+        int count = workspace.act(new StageCallable(artifacts, stagingDir.getRemote()));
+        if (count == 0) {
+            stagingDir.deleteRecursive();
+            logger.warn("No artifacts matched, return");
+            return;
+        }
+        List<ArtifactConfig> stagedArtifacts = new ArrayList<>(artifacts.size());
+        for (ArtifactConfig artifact : artifacts) {
+            stagedArtifacts.add(artifact.toStaged());
+        }
+        OSSArchiverAction action = new OSSArchiverAction();
+        action.setAsyncId(id);
+        action.setTarget(Util.fixEmpty(target.getName()));
+        action.setStatus(OSSArchiverAction.Status.PENDING);
+        run.addAction(action);
+        AsyncUploadQueue.submit(new AsyncUpload(id, run.getExternalizableId(), computer.getName(), stagingDir.getRemote(),
+                actualUploadFolder, Util.fixEmpty(target.getName()), this, stagedArtifacts));
+        logger.info("Staged " + count + " files, uploading in the background");
+    }
+
+    private static void checkTarget(OSSTarget target) {
+        if (!target.isValid()) {
+            throw new IllegalArgumentException("Invalid configuration of target " + target);
         }
-        return null;
     }
 
     /**
-     * @see FilePath#normalize(java.lang.String)
+     * Adds the {@link #getMirrors() mirrors} other than {@code target} to {@code options}.
      */
-    private String normalize(@NonNull String path) {
-        StringBuilder buf = new StringBuilder();
-        // Check for prefix designating absolute path
-        Matcher m = ABSOLUTE_PREFIX_PATTERN.matcher(path);
-        if (m.find()) {
-            buf.append(m.group(1));
-            path = path.substring(m.end());
-        }
-        boolean isAbsolute = buf.length() > 0;
-        // Split remaining path into tokens, trimming any duplicate or trailing separators
-        List<String> tokens = new ArrayList<>();
-        int s = 0, end = path.length();
-        for (int i = 0; i < end; i++) {
-            char c = path.charAt(i);
-            if (c == '/' || c == '\\') {
-                tokens.add(path.substring(s, i));
-                s = i;
-                // Skip any extra separator chars
-                //noinspection StatementWithEmptyBody
-                while (++i < end && ((c = path.charAt(i)) == '/' || c == '\\'))
-                    ;
-                // Add token for separator unless we reached the end
-                if (i < end) tokens.add(path.substring(s, s + 1));
-                s = i;
+    private void addMirrors(OSSArchiverConfiguration configuration, OSSTarget target, Run<?, ?> run, UploadOptions options,
+                            OSSArchiverLogger logger) {
+        if (mirrors == null) {
+            return;
+        }
+        if (sync) {
+            logger.warn("Mirrors are not synced, uploading to " + target + " only");
+            return;
+        }
+        for (OSSTarget mirror : getMirrorTargets(configuration)) {
+            if (mirror.getName().equals(target.getName())) {
+                continue;
             }
+            checkTarget(mirror);
+            StandardUsernamePasswordCredentials credentials = findCredentials(mirror.getCredentialsId(), run);
+            options.addMirror(new UploadOptions.Mirror(mirror.toString(), configuration.createClientSettings(mirror, credentials),
+                    mirror.getBucket(), configuration.getUploadConcurrency(mirror)));
         }
-        if (s < end) tokens.add(path.substring(s));
-        // Look through tokens for "." or ".."
-        for (int i = 0; i < tokens.size(); ) {
-            String token = tokens.get(i);
-            if (token.equals(".")) {
-                tokens.remove(i);
-                if (tokens.size() > 0)
-                    tokens.remove(i > 0 ? i - 1 : i);
-            } else if (token.equals("..")) {
-                if (i == 0) {
-                    // If absolute path, just remove: /../something
-                    // If relative path, not collapsible so leave as-is
-                    tokens.remove(0);
-                    if (tokens.size() > 0) token += tokens.remove(0);
-                    if (!isAbsolute) buf.append(token);
-                } else {
-                    // Normalize: remove something/.. plus separator before/after
-                    i -= 2;
-                    for (int j = 0; j < 3; j++) tokens.remove(i);
-                    if (i > 0) tokens.remove(i - 1);
-                    else if (tokens.size() > 0) tokens.remove(0);
+    }
+
+    private List<OSSTarget> getMirrorTargets(OSSArchiverConfiguration configuration) {
+        List<OSSTarget> targets = new ArrayList<>();
+        if (mirrors != null) {
+            for (String name : mirrors.split(",")) {
+                if (StringUtils.isNotBlank(name)) {
+                    targets.add(configuration.getTarget(name));
                 }
-            } else
-                i += 2;
+            }
         }
-        // Recombine tokens
-        for (String token : tokens) buf.append(token);
-        if (buf.length() == 0) buf.append('.');
-        return buf.toString();
+        return targets;
     }
 
-    private String makeUrl(OSSClient ossClient, String bucket, String key) {
-        URI uri = ossClient.getEndpoint();
-        return uri.getScheme() + "://" + bucket + "." + uri.getAuthority() + "/" + key;
+    private StandardUsernamePasswordCredentials findCredentials(String credentialsId, Run<?, ?> run) {
+        StandardUsernamePasswordCredentials credentials = CredentialsProvider.findCredentialById(credentialsId, StandardUsernamePasswordCredentials.class, run);
+        if (credentials == null) {
+            throw new IllegalArgumentException("Credentials not found: id=" + credentialsId);
+        }
+        return credentials;
     }
 
     public static class ArtifactConfig extends AbstractDescribableImpl<ArtifactConfig> implements Serializable {
         private String folder;
         private String filename;
+        private String excludes;
+        private Boolean defaultExcludes;
+        private String archive;
+        private Integer compressionLevel;
+        private int compressionThreads;
+        private boolean archiveManifest;
+        private String target;
 
         @DataBoundConstructor
         public ArtifactConfig(String folder, String filename) {
@@ -278,6 +466,90 @@ public class OSSArchiverPublisher extends Recorder implements SimpleBuildStep {
             this.filename = filename;
         }
 
+        public String getExcludes() {
+            return excludes;
+        }
+
+        @DataBoundSetter
+        public void setExcludes(String excludes) {
+            this.excludes = Util.fixEmptyAndTrim(excludes);
+        }
+
+        public boolean isDefaultExcludes() {
+            return defaultExcludes == null || defaultExcludes;
+        }
+
+        @DataBoundSetter
+        public void setDefaultExcludes(boolean defaultExcludes) {
+            this.defaultExcludes = defaultExcludes;
+        }
+
+        /**
+         * @return {@link ArchiveStreamer#FORMAT_TAR_GZ} or {@link ArchiveStreamer#FORMAT_ZIP} to upload the matched
+         * files as a single archive, blank to upload them one by one
+         */
+        public String getArchive() {
+            return archive;
+        }
+
+        @DataBoundSetter
+        public void setArchive(String archive) {
+            this.archive = Util.fixEmptyAndTrim(archive);
+        }
+
+        public Integer getCompressionLevel() {
+            return compressionLevel;
+        }
+
+        @DataBoundSetter
+        public void setCompressionLevel(Integer compressionLevel) {
+            this.compressionLevel = compressionLevel;
+        }
+
+        public int getCompressionThreads() {
+            return compressionThreads;
+        }
+
+        @DataBoundSetter
+        public void setCompressionThreads(int compressionThreads) {
+            this.compressionThreads = compressionThreads;
+        }
+
+        public boolean isArchiveManifest() {
+            return archiveManifest;
+        }
+
+        @DataBoundSetter
+        public void setArchiveManifest(boolean archiveManifest) {
+            this.archiveManifest = archiveManifest;
+        }
+
+        /**
+         * @return name of the {@link OSSTarget} this artifact is uploaded to, null for the target of the job
+         */
+        public String getTarget() {
+            return target;
+        }
+
+        @DataBoundSetter
+        public void setTarget(String target) {
+            this.target = Util.fixEmptyAndTrim(target);
+        }
+
+        /**
+         * @return this artifact matching every file, for uploading what {@link StageCallable} already selected
+         */
+        ArtifactConfig toStaged() {
+            ArtifactConfig staged = new ArtifactConfig(folder, null);
+            staged.defaultExcludes = false;
+            staged.archive = archive;
+            staged.compressionLevel = compressionLevel;
+            staged.compressionThreads = compressionThreads;
+            staged.archiveManifest = archiveManifest;
+            staged.target = target;
+            return staged;
+        }
+
         public FormValidation doCheckFolder(@QueryParameter String value) {
             return checkPath(value, Messages.Publisher_WillUploadWorkspace());
         }
@@ -320,5 +592,65 @@ public class OSSArchiverPublisher extends Recorder implements SimpleBuildStep {
         public boolean isApplicable(Class<? extends AbstractProject> jobType) {
             return true;
         }
+
+        public FormValidation doCheckConcurrency(@QueryParameter String value) {
+            return OSSArchiverConfiguration.checkPositiveInteger(value);
+        }
+
+        public ListBoxModel doFillTargetItems() {
+            ListBoxModel items = new ListBoxModel();
+            items.add(Messages.Publisher_TargetAutomatic(), "");
+            for (OSSTarget target : OSSArchiverConfiguration.get().getTargets()) {
+                items.add(target.getName());
+            }
+            return items;
+        }
+
+        public FormValidation doCheckMirrors(@QueryParameter String value) {
+            if (StringUtils.isBlank(value)) {
+                return FormValidation.ok();
+            }
+            OSSArchiverConfiguration configuration = OSSArchiverConfiguration.get();
+            for (String name : value.split(",")) {
+                if (StringUtils.isBlank(name)) {
+                    continue;
+                }
+                try {
+                    configuration.getTarget(name);
+                } catch (IllegalArgumentException e) {
+                    return FormValidation.error(Messages.Publisher_UnknownTarget(name.trim()));
+                }
+            }
+            return FormValidation.ok();
+        }
+
+        public ListBoxModel doFillFailureResultItems() {
+            ListBoxModel items = new ListBoxModel();
+            items.add(Messages.Publisher_FailureResultUnstable(), Result.UNSTABLE.toString());
+            items.add(Messages.Publisher_FailureResultFailure(), Result.FAILURE.toString());
+            return items;
+        }
+
+        public ListBoxModel doFillArchiveItems() {
+            ListBoxModel items = new ListBoxModel();
+            items.add(Messages.Publisher_ArchiveNone(), "");
+            items.add(ArchiveStreamer.FORMAT_TAR_GZ);
+            items.add(ArchiveStreamer.FORMAT_ZIP);
+            return items;
+        }
+
+        public FormValidation doCheckCompressionLevel(@QueryParameter String value) {
+            if (StringUtils.isBlank(value)) {
+                return FormValidation.ok();
+            }
+            try {
+                int level = Integer.parseInt(value.trim());
+                if (level >= 0 && level <= 9) {
+                    return FormValidation.ok();
+                }
+            } catch (NumberFormatException ignored) {
+            }
+            return FormValidation.error(Messages.Publisher_InvalidCompressionLevel());
+        }
     }
 }
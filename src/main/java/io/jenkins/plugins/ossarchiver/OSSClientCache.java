@@ -0,0 +1,159 @@
+package io.jenkins.plugins.ossarchiver;
+
+import com.aliyun.oss.OSSClient;
+import hudson.init.Terminator;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shares {@link OSSClient}s, and so their connection pools, between builds running in the same JVM.
+ * <p>
+ * Clients are handed out as {@link Lease}s. A client nobody holds a lease on is shut down after being idle for
+ * {@link #IDLE_EXPIRY}, when the global configuration changes, or when Jenkins stops.
+ * The cache also lives on agents when uploading from the agent, where only the idle expiry applies.
+ */
+public final class OSSClientCache {
+    private static final long IDLE_EXPIRY = TimeUnit.MINUTES.toMillis(10);
+    private static final long EVICTION_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    private static final Map<String, Entry> ENTRIES = new HashMap<>();
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static ScheduledExecutorService evictor;
+
+    private OSSClientCache() {
+    }
+
+    public static Lease acquire(OSSClientSettings settings) {
+        String key = settings.getCacheKey();
+        synchronized (ENTRIES) {
+            Entry entry = ENTRIES.get(key);
+            if (entry == null) {
+                MISSES.incrementAndGet();
+                entry = new Entry(settings.createClient());
+                ENTRIES.put(key, entry);
+                startEvictor();
+            } else {
+                HITS.incrementAndGet();
+            }
+            entry.leases++;
+            return new Lease(entry);
+        }
+    }
+
+    /**
+     * @return number of leases served by an already cached client in this JVM
+     */
+    public static long getHits() {
+        return HITS.get();
+    }
+
+    /**
+     * @return number of leases that had to create a client in this JVM
+     */
+    public static long getMisses() {
+        return MISSES.get();
+    }
+
+    /**
+     * Drops every cached client, clients still leased are shut down once released.
+     */
+    public static void invalidateAll() {
+        synchronized (ENTRIES) {
+            for (Entry entry : ENTRIES.values()) {
+                entry.retired = true;
+                if (entry.leases == 0) {
+                    entry.client.shutdown();
+                }
+            }
+            ENTRIES.clear();
+        }
+    }
+
+    @Terminator
+    public static void shutdown() {
+        invalidateAll();
+        synchronized (ENTRIES) {
+            if (evictor != null) {
+                evictor.shutdownNow();
+                evictor = null;
+            }
+        }
+    }
+
+    private static void startEvictor() {
+        if (evictor == null) {
+            evictor = Executors.newSingleThreadScheduledExecutor(
+                    new NamingThreadFactory(new DaemonThreadFactory(), "OSSArchiver client cache"));
+            evictor.scheduleWithFixedDelay(OSSClientCache::evictIdle, EVICTION_INTERVAL, EVICTION_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void evictIdle() {
+        long now = System.currentTimeMillis();
+        synchronized (ENTRIES) {
+            Iterator<Entry> iterator = ENTRIES.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.leases == 0 && now - entry.lastUsed > IDLE_EXPIRY) {
+                    iterator.remove();
+                    entry.retired = true;
+                    entry.client.shutdown();
+                }
+            }
+        }
+    }
+
+    private static void release(Entry entry) {
+        synchronized (ENTRIES) {
+            entry.leases--;
+            entry.lastUsed = System.currentTimeMillis();
+            if (entry.retired && entry.leases == 0) {
+                entry.client.shutdown();
+            }
+        }
+    }
+
+    private static class Entry {
+        private final OSSClient client;
+        private int leases;
+        private long lastUsed = System.currentTimeMillis();
+        private boolean retired;
+
+        Entry(OSSClient client) {
+            this.client = client;
+        }
+    }
+
+    public static class Lease implements AutoCloseable {
+        private final Entry entry;
+        private boolean closed;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        public OSSClient getClient() {
+            return entry.client;
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            release(entry);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package io.jenkins.plugins.ossarchiver;
+
+import com.aliyun.oss.ClientConfiguration;
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.common.auth.DefaultCredentialProvider;
+import hudson.Util;
+
+import java.io.Serializable;
+
+/**
+ * Everything needed to build an {@link OSSClient}, also used as the key of {@link OSSClientCache}.
+ */
+public class OSSClientSettings implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String endPoint;
+    private final String credentialsId;
+    private final String accessKeyId;
+    private final String accessKeySecret;
+    private int maxConnections;
+    private int connectionTimeout;
+    private int socketTimeout;
+    private long idleConnectionTime;
+
+    public OSSClientSettings(String endPoint, String credentialsId, String accessKeyId, String accessKeySecret) {
+        this.endPoint = endPoint;
+        this.credentialsId = credentialsId;
+        this.accessKeyId = accessKeyId;
+        this.accessKeySecret = accessKeySecret;
+    }
+
+    public String getEndPoint() {
+        return endPoint;
+    }
+
+    public String getCredentialsId() {
+        return credentialsId;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    public void setConnectionTimeout(int connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public void setSocketTimeout(int socketTimeout) {
+        this.socketTimeout = socketTimeout;
+    }
+
+    public long getIdleConnectionTime() {
+        return idleConnectionTime;
+    }
+
+    public void setIdleConnectionTime(long idleConnectionTime) {
+        this.idleConnectionTime = idleConnectionTime;
+    }
+
+    /**
+     * Credentials are identified by id plus a fingerprint of the key pair, so rotating the secret of the same
+     * credentials id never reuses a client built with the old one.
+     */
+    public String getCacheKey() {
+        return endPoint + "|" + credentialsId + "|" + Util.getDigestOf(accessKeyId + ":" + accessKeySecret)
+                + "|" + maxConnections + "|" + connectionTimeout + "|" + socketTimeout + "|" + idleConnectionTime;
+    }
+
+    public OSSClient createClient() {
+        ClientConfiguration configuration = new ClientConfiguration();
+        // Retrier is the only retry layer, so every attempt counts against the retry budget and the circuit breaker
+        configuration.setMaxErrorRetry(0);
+        if (maxConnections > 0) {
+            configuration.setMaxConnections(maxConnections);
+        }
+        if (connectionTimeout > 0) {
+            configuration.setConnectionTimeout(connectionTimeout);
+        }
+        if (socketTimeout > 0) {
+            configuration.setSocketTimeout(socketTimeout);
+        }
+        if (idleConnectionTime > 0) {
+            configuration.setUseReaper(true);
+            configuration.setIdleConnectionTime(idleConnectionTime);
+        }
+        return new OSSClient(endPoint, new DefaultCredentialProvider(accessKeyId, accessKeySecret), configuration);
+    }
+}
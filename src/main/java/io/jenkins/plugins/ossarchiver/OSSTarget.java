@@ -0,0 +1,179 @@
+package io.jenkins.plugins.ossarchiver;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+
+/**
+ * A named endpoint, bucket and credentials artifacts can be uploaded to, besides the default one of
+ * {@link OSSArchiverConfiguration}.
+ * <p>
+ * Each target gets its own client, and so its own connection pool, and its own upload concurrency.
+ */
+public class OSSTarget extends AbstractDescribableImpl<OSSTarget> {
+    private final String name;
+    private String endPoint;
+    private String bucket;
+    private String credentialsId;
+    private String label;
+    private int uploadConcurrency;
+    private int maxConnections;
+
+    @DataBoundConstructor
+    public OSSTarget(String name) {
+        this.name = Util.fixNull(name).trim();
+    }
+
+    OSSTarget(String name, String endPoint, String bucket, String credentialsId) {
+        this(name);
+        this.endPoint = endPoint;
+        this.bucket = bucket;
+        this.credentialsId = credentialsId;
+    }
+
+    /**
+     * @return name jobs pick the target by, empty for the default target
+     */
+    public String getName() {
+        return name;
+    }
+
+    public String getEndPoint() {
+        return endPoint;
+    }
+
+    @DataBoundSetter
+    public void setEndPoint(String endPoint) {
+        this.endPoint = Util.fixEmptyAndTrim(endPoint);
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    @DataBoundSetter
+    public void setBucket(String bucket) {
+        this.bucket = Util.fixEmptyAndTrim(bucket);
+    }
+
+    public String getCredentialsId() {
+        return credentialsId;
+    }
+
+    @DataBoundSetter
+    public void setCredentialsId(String credentialsId) {
+        this.credentialsId = Util.fixEmptyAndTrim(credentialsId);
+    }
+
+    /**
+     * @return label expression of the agents this target is nearest to, null when never picked by label
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    @DataBoundSetter
+    public void setLabel(String label) {
+        this.label = Util.fixEmptyAndTrim(label);
+    }
+
+    /**
+     * @return files uploaded to this target at the same time, 0 for the global upload concurrency
+     */
+    public int getUploadConcurrency() {
+        return uploadConcurrency;
+    }
+
+    @DataBoundSetter
+    public void setUploadConcurrency(int uploadConcurrency) {
+        this.uploadConcurrency = Math.max(0, uploadConcurrency);
+    }
+
+    /**
+     * @return connections of the client of this target, 0 for the global max connections
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    @DataBoundSetter
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = Math.max(0, maxConnections);
+    }
+
+    public boolean isValid() {
+        return StringUtils.isNotEmpty(endPoint) && StringUtils.isNotEmpty(bucket) && StringUtils.isNotEmpty(credentialsId);
+    }
+
+    /**
+     * @return whether the label expression of this target matches {@code node}
+     */
+    public boolean matches(Node node) {
+        if (label == null || node == null) {
+            return false;
+        }
+        Label expression = Jenkins.get().getLabel(label);
+        return expression != null && expression.contains(node);
+    }
+
+    @Override
+    public String toString() {
+        return name.isEmpty() ? "default" : name;
+    }
+
+    @Symbol("ossTarget")
+    @Extension
+    public static class DescriptorImpl extends Descriptor<OSSTarget> {
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return Messages.Target_DisplayName();
+        }
+
+        public FormValidation doCheckName(@QueryParameter String value) {
+            if (StringUtils.isBlank(value)) {
+                return FormValidation.error(Messages.Target_MissingName());
+            }
+            return FormValidation.ok();
+        }
+
+        public FormValidation doCheckEndPoint(@QueryParameter String value) {
+            return OSSArchiverConfiguration.get().doCheckEndPoint(value);
+        }
+
+        public FormValidation doCheckBucket(@QueryParameter String value) {
+            return OSSArchiverConfiguration.get().doCheckBucket(value);
+        }
+
+        public FormValidation doCheckLabel(@QueryParameter String value) {
+            if (StringUtils.isBlank(value)) {
+                return FormValidation.ok();
+            }
+            return Label.validateLabelExpression(value, null);
+        }
+
+        public FormValidation doCheckUploadConcurrency(@QueryParameter String value) {
+            return OSSArchiverConfiguration.checkNonNegativeInteger(value);
+        }
+
+        public FormValidation doCheckMaxConnections(@QueryParameter String value) {
+            return OSSArchiverConfiguration.checkNonNegativeInteger(value);
+        }
+
+        public ListBoxModel doFillCredentialsIdItems(@QueryParameter String credentialsId) {
+            return OSSArchiverConfiguration.get().doFillCredentialsIdItems(credentialsId);
+        }
+    }
+}
@@ -0,0 +1,607 @@
+package io.jenkins.plugins.ossarchiver;
+
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.OSSClient;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+import com.aliyun.oss.model.CopyObjectRequest;
+import com.aliyun.oss.model.OSSObject;
+import com.aliyun.oss.model.PutObjectResult;
+import hudson.FilePath;
+import hudson.slaves.WorkspaceList;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.lang.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds the configured artifacts in a workspace and uploads them to OSS.
+ * <p>
+ * Works against whatever {@link FilePath} it is given: on the controller the workspace may be remote and every
+ * byte is relayed, inside {@link UploadCallable} the workspace is local to the agent.
+ */
+public class OSSUploader {
+    public static final String ENTRIES_SUFFIX = ".entries.txt";
+    public static final String CHECKSUMS_NAME = ".oss-archiver-checksums";
+    private static final int QUEUE_SIZE_PER_WORKER = 2;
+    // Largest source a single CopyObject request accepts
+    private static final long COPY_OBJECT_LIMIT = 1024L * 1024 * 1024;
+
+    private final UploadOptions options;
+    private final OSSArchiverLogger logger;
+    private OSSClient ossClient;
+    private MultipartUploader multipartUploader;
+    private DeduplicationIndex deduplicationIndex;
+    private Retrier retrier;
+    private MirrorUploader mirrorUploader;
+    private UploadMonitor monitor;
+    private UploadGate gate;
+    private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+    private final AtomicLong checksumTime = new AtomicLong();
+
+    public OSSUploader(UploadOptions options, OSSArchiverLogger logger) {
+        this.options = options;
+        this.logger = logger;
+    }
+
+    public void setMonitor(UploadMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    /**
+     * @param gate admits every file upload and throttles the bytes sent, null for no limits
+     */
+    public void setGate(UploadGate gate) {
+        this.gate = gate;
+    }
+
+    public UploadReport upload(FilePath workspace, List<OSSArchiverPublisher.ArtifactConfig> artifacts) throws IOException, InterruptedException {
+        long startTime = System.nanoTime();
+        FilePath stateDir = getStateDir(workspace);
+        int concurrency = Math.max(1, options.getConcurrency());
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency,
+                new NamingThreadFactory(new DaemonThreadFactory(), "OSSArchiver upload"));
+        // Bounds the number of submitted but unfinished uploads, so the queue never holds the whole file list
+        Semaphore queue = new Semaphore(concurrency * QUEUE_SIZE_PER_WORKER);
+        ExecutorService partExecutor = Executors.newFixedThreadPool(concurrency,
+                new NamingThreadFactory(new DaemonThreadFactory(), "OSSArchiver multipart upload"));
+        logger.setVerbose(options.isVerboseLog());
+        try (OSSClientCache.Lease lease = OSSClientCache.acquire(options.getClientSettings());
+             MirrorUploader mirrors = new MirrorUploader(options, partExecutor, stateDir.child("checkpoints"), logger, failures);
+             UploadProgress progress = new UploadProgress(logger, options.getProgressInterval())) {
+            ossClient = lease.getClient();
+            retrier = new Retrier(options.getRetryPolicy(),
+                    CircuitBreaker.of(options.getClientSettings().getEndPoint(), options.getBucket()), logger);
+            multipartUploader = new MultipartUploader(ossClient, options.getBucket(),
+                    options.getMultipartPartSize(), partExecutor, stateDir.child("checkpoints"), logger);
+            multipartUploader.setGate(gate);
+            mirrorUploader = mirrors;
+            mirrorUploader.setGate(gate);
+            if (options.isDeduplicate()) {
+                deduplicationIndex = DeduplicationIndex.load(stateDir, options.getClientSettings().getEndPoint(), options.getBucket());
+            }
+            TaskFinder finder = new TaskFinder(workspace, artifacts);
+            IncrementalSync sync = null;
+            Map<String, Long> unchangedSizes = null;
+            Iterator<UploadTask> plannedTasks = null;
+            if (options.isSync()) {
+                // Comparing needs every key sorted, so here discovery has to finish before the first upload
+                List<UploadTask> tasks = new ArrayList<>();
+                for (UploadTask task = finder.next(); task != null; task = finder.next()) {
+                    task.discoveredAt = elapsedSince(startTime);
+                    tasks.add(task);
+                    progress.discovered();
+                }
+                progress.discoveryFinished();
+                sync = new IncrementalSync(ossClient, retrier, options.getBucket(), KeyBuilder.normalize(options.getUploadFolder()),
+                        options.isDeleteOrphans(), stateDir, logger);
+                unchangedSizes = sync.plan(tasks);
+                plannedTasks = tasks.iterator();
+            }
+            UploadReport report = new UploadReport();
+            List<String> folders = new ArrayList<>();
+            List<Future<UploadResult>> futures = new ArrayList<>();
+            while (true) {
+                UploadTask task;
+                if (plannedTasks != null) {
+                    task = plannedTasks.hasNext() ? plannedTasks.next() : null;
+                } else {
+                    task = finder.next();
+                    if (task != null) {
+                        task.discoveredAt = elapsedSince(startTime);
+                        progress.discovered();
+                    }
+                }
+                if (task == null) {
+                    progress.discoveryFinished();
+                    break;
+                }
+                // Folders are listed in the order of their first match
+                report.addFolder(task.getFolder());
+                folders.add(task.getFolder());
+                Long unchangedSize = unchangedSizes != null && !task.isArchive() ? unchangedSizes.get(task.getKey()) : null;
+                if (unchangedSize != null) {
+                    String url = makeUrl(ossClient, options.getBucket(), task.getKey());
+                    UploadResult unchanged = new UploadResult(task.getFile(), task.getKey(), url, unchangedSize, false);
+                    unchanged.setDiscoveredAt(task.getDiscoveredAt());
+                    progress.finished(0);
+                    futures.add(CompletableFuture.completedFuture(unchanged));
+                    continue;
+                }
+                queue.acquire();
+                if (monitor != null) {
+                    monitor.queued();
+                }
+                try {
+                    futures.add(executor.submit(() -> {
+                        if (gate != null) {
+                            try {
+                                gate.acquireSlot();
+                            } catch (InterruptedException e) {
+                                queue.release();
+                                if (monitor != null) {
+                                    monitor.dropped();
+                                }
+                                throw e;
+                            }
+                        }
+                        if (monitor != null) {
+                            monitor.started();
+                        }
+                        try {
+                            long uploadStart = System.nanoTime();
+                            Retrier taskRetrier = retrier.forTask();
+                            UploadResult result = task.isArchive() ? uploadArchive(task, taskRetrier)
+                                    : uploadFile(task.getFilePath(), task.getFile(), task.getKey(), taskRetrier);
+                            if (result != null) {
+                                result.setDiscoveredAt(task.getDiscoveredAt());
+                                result.setDuration(elapsedSince(uploadStart));
+                                result.setRetries(taskRetrier.getRetries());
+                                progress.finished(result.isDeduplicated() ? 0 : result.getSize());
+                            } else {
+                                progress.failed();
+                            }
+                            return result;
+                        } finally {
+                            if (gate != null) {
+                                gate.releaseSlot();
+                            }
+                            queue.release();
+                            if (monitor != null) {
+                                monitor.finished();
+                            }
+                        }
+                    }));
+                } catch (RejectedExecutionException e) {
+                    queue.release();
+                    if (monitor != null) {
+                        monitor.dropped();
+                    }
+                    throw e;
+                }
+            }
+            // Reassemble in submission order, so the result does not depend on which upload finished first
+            for (int i = 0; i < futures.size(); i++) {
+                UploadResult result = futures.get(i).get();
+                if (result != null) {
+                    report.addFolder(folders.get(i)).add(result);
+                }
+            }
+            if (sync != null) {
+                sync.finish(report);
+            }
+            if (deduplicationIndex != null) {
+                deduplicationIndex.save();
+            }
+            if (options.isVerifyChecksums() && !report.isEmpty()) {
+                uploadChecksums(report);
+            }
+            failures.forEach((errorCode, count) -> report.getFailures().put(errorCode, count));
+            report.getMirrored().putAll(mirrors.getCopied());
+            report.setStatistics(UploadStatistics.of(report, elapsedSince(startTime),
+                    TimeUnit.NANOSECONDS.toMillis(checksumTime.get())));
+            return report;
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            List<Runnable> dropped = executor.shutdownNow();
+            if (monitor != null) {
+                dropped.forEach(task -> monitor.dropped());
+            }
+            partExecutor.shutdownNow();
+        }
+    }
+
+    private UploadResult uploadFile(FilePath filePath, String file, String key, Retrier retrier) {
+        try {
+            long size = filePath.length();
+            String md5 = null;
+            if (deduplicationIndex != null) {
+                // FilePath#digest runs where the file lives, only the hash crosses the channel
+                md5 = filePath.digest();
+                DeduplicationIndex.Entry source = deduplicationIndex.get(md5, size);
+                if (source != null && !source.getKey().equals(key)) {
+                    try {
+                        String eTag = copyObject(source, key, size, retrier);
+                        logger.file("Copied: " + source.getKey() + " -> " + key);
+                        // Mirrors have no index, they copy from the same key if they have it
+                        mirrorUploader.copyObject(source, filePath, key, size, COPY_OBJECT_LIMIT);
+                        deduplicationIndex.put(md5, size, eTag, key);
+                        UploadResult result = new UploadResult(file, key, makeUrl(ossClient, options.getBucket(), key), size, true);
+                        result.setETag(eTag);
+                        if (options.isVerifyChecksums()) {
+                            result.setMd5(md5);
+                        }
+                        return result;
+                    } catch (OSSException e) {
+                        if (!OSSErrorCode.NO_SUCH_KEY.equals(e.getErrorCode())
+                                && !OSSErrorCode.PRECONDITION_FAILED.equals(e.getErrorCode())) {
+                            throw e;
+                        }
+                        deduplicationIndex.remove(md5);
+                    }
+                }
+            }
+            logger.file("Uploading: " + key);
+            Checksums checksums = options.isVerifyChecksums() ? new Checksums(checksumTime) : null;
+            String eTag;
+            if (size >= options.getMultipartThreshold()) {
+                // Every part read for the main upload also goes to the mirrors
+                MirrorUploader.MultipartFanOut fanOut = mirrorUploader.isEmpty() ? null : mirrorUploader.multipart(key);
+                boolean uploaded = false;
+                try {
+                    eTag = multipartUploader.upload(filePath, key, size, retrier, checksums, fanOut);
+                    uploaded = true;
+                } finally {
+                    if (fanOut != null) {
+                        fanOut.finish(uploaded);
+                    }
+                }
+            } else {
+                // The mirrors read what the first attempt sends, so the file is read once
+                MirrorUploader.FanOut fanOut = mirrorUploader.isEmpty() ? null : mirrorUploader.fanOut(key, size);
+                boolean uploaded = false;
+                try {
+                    eTag = retrier.call("Upload: " + key, () -> {
+                        InputStream source = ThrottledInputStream.wrap(filePath.read(), gate);
+                        try (InputStream inputStream = fanOut != null ? fanOut.tee(source) : source) {
+                            if (checksums == null) {
+                                return ossClient.putObject(options.getBucket(), key, inputStream).getETag();
+                            }
+                            ChecksumInputStream checksumStream = checksums.wrap(inputStream);
+                            PutObjectResult putResult = ossClient.putObject(options.getBucket(), key, checksumStream);
+                            checksumStream.verify(key, putResult.getETag(), putResult.getServerCRC());
+                            checksums.setMd5(checksumStream.getMd5());
+                            checksums.setCrc64(checksumStream.getCrc64());
+                            return putResult.getETag();
+                        }
+                    });
+                    uploaded = true;
+                } finally {
+                    if (fanOut != null) {
+                        fanOut.finish(filePath, checksums != null ? checksums.getCrc64() : null, uploaded);
+                    }
+                }
+            }
+            if (md5 != null) {
+                deduplicationIndex.put(md5, size, eTag, key);
+            }
+            String url = makeUrl(ossClient, options.getBucket(), key);
+            UploadResult result = new UploadResult(file, key, url, size, false);
+            result.setETag(eTag);
+            if (checksums != null) {
+                result.setMd5(checksums.getMd5());
+                result.setCrc64(checksums.getCrc64());
+            }
+            return result;
+        } catch (Exception e) {
+            logger.warn("Upload failed: " + key, e);
+            failures.merge(getErrorCode(e), 1, Integer::sum);
+            return null;
+        }
+    }
+
+    private UploadResult uploadArchive(UploadTask task, Retrier retrier) {
+        OSSArchiverPublisher.ArtifactConfig config = task.getArchiveConfig();
+        String key = task.getKey();
+        try {
+            StringBuilder manifest = config.isArchiveManifest() ? new StringBuilder() : null;
+            logger.file("Uploading archive: " + key);
+            ArchiveStreamer streamer = new ArchiveStreamer(config.getArchive(), config.getCompressionLevel(), config.getCompressionThreads());
+            long size;
+            int entries;
+            String eTag;
+            Checksums checksums = options.isVerifyChecksums() ? new Checksums(checksumTime) : null;
+            // The archive is packed once, every part also goes to the mirrors
+            MirrorUploader.MultipartFanOut fanOut = mirrorUploader.isEmpty() ? null : mirrorUploader.multipart(key);
+            boolean uploaded = false;
+            try (ArchiveStreamer.Stream stream = streamer.open(task.getFilePath(), task.getArchiveFiles(), manifest);
+                 CountingInputStream inputStream = new CountingInputStream(ThrottledInputStream.wrap(stream, gate))) {
+                eTag = multipartUploader.upload(inputStream, key, retrier, checksums, fanOut);
+                size = inputStream.getByteCount();
+                entries = stream.getEntries();
+                uploaded = true;
+            } finally {
+                if (fanOut != null) {
+                    fanOut.finish(uploaded);
+                }
+            }
+            UploadResult result = new UploadResult(task.getFile(), key, makeUrl(ossClient, options.getBucket(), key), size, false);
+            result.setETag(eTag);
+            result.setEntries(entries);
+            if (checksums != null) {
+                result.setCrc64(checksums.getCrc64());
+            }
+            if (manifest != null) {
+                String manifestKey = key + ENTRIES_SUFFIX;
+                byte[] manifestBytes = manifest.toString().getBytes(StandardCharsets.UTF_8);
+                retrier.call("Upload: " + manifestKey, () -> ossClient.putObject(options.getBucket(), manifestKey,
+                        new ByteArrayInputStream(manifestBytes)));
+                mirrorUploader.copyBytes(manifestKey, manifestBytes);
+                result.setEntriesUrl(makeUrl(ossClient, options.getBucket(), manifestKey));
+            }
+            return result;
+        } catch (Exception e) {
+            logger.warn("Upload failed: " + key, e);
+            failures.merge(getErrorCode(e), 1, Integer::sum);
+            return null;
+        }
+    }
+
+    /**
+     * Uploads the checksums of every verified object next to them, one line per object with the key last. A sync
+     * keeps the lines of the objects it left unchanged from the checksum file of the previous sync.
+     */
+    private void uploadChecksums(UploadReport report) throws InterruptedException {
+        String key = KeyBuilder.normalize(options.getUploadFolder() + "/" + CHECKSUMS_NAME);
+        Map<String, String> previous = options.isSync() ? readChecksums(key, report) : Collections.emptyMap();
+        StringBuilder content = new StringBuilder();
+        for (List<UploadResult> items : report.getFolders().values()) {
+            for (UploadResult item : items) {
+                if (item.getMd5() != null || item.getCrc64() != null) {
+                    content.append(item.getMd5() != null ? item.getMd5() : "").append('\t')
+                            .append(item.getCrc64() != null ? item.getCrc64() : "").append('\t')
+                            .append(item.getSize()).append('\t')
+                            .append(item.getKey()).append('\n');
+                } else if (previous.containsKey(item.getKey())) {
+                    content.append(previous.get(item.getKey())).append('\n');
+                }
+            }
+        }
+        byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            retrier.call("Upload: " + key, () -> ossClient.putObject(options.getBucket(), key, new ByteArrayInputStream(bytes)));
+            report.setChecksumsUrl(makeUrl(ossClient, options.getBucket(), key));
+            mirrorUploader.copyBytes(key, bytes);
+        } catch (Exception e) {
+            logger.warn("Upload failed: " + key, e);
+            failures.merge(getErrorCode(e), 1, Integer::sum);
+        }
+    }
+
+    /**
+     * @return lines of the checksum file at {@code key} for the objects of {@code report} without checksums, by key
+     */
+    private Map<String, String> readChecksums(String key, UploadReport report) throws InterruptedException {
+        Set<String> unchanged = new HashSet<>();
+        for (List<UploadResult> items : report.getFolders().values()) {
+            for (UploadResult item : items) {
+                if (item.getMd5() == null && item.getCrc64() == null) {
+                    unchanged.add(item.getKey());
+                }
+            }
+        }
+        Map<String, String> lines = new HashMap<>();
+        if (unchanged.isEmpty()) {
+            return lines;
+        }
+        try {
+            if (!retrier.call("Check: " + key, () -> ossClient.doesObjectExist(options.getBucket(), key))) {
+                return lines;
+            }
+            try (OSSObject object = retrier.call("Download: " + key, () -> ossClient.getObject(options.getBucket(), key));
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(object.getObjectContent(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] values = line.split("\t", 4);
+                    if (values.length == 4 && unchanged.contains(values[3])) {
+                        lines.put(values[3], line);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to read the previous checksums, unchanged objects are left out: " + key, e);
+        }
+        return lines;
+    }
+
+    static String getErrorCode(Throwable e) {
+        if (e instanceof OSSException && ((OSSException) e).getErrorCode() != null) {
+            return ((OSSException) e).getErrorCode();
+        }
+        if (e instanceof ClientException && ((ClientException) e).getErrorCode() != null) {
+            return ((ClientException) e).getErrorCode();
+        }
+        return e.getClass().getSimpleName();
+    }
+
+    private String getArchiveName(String folder, String format) {
+        String name = folder.replace(File.separator, "/");
+        name = name.substring(name.lastIndexOf('/') + 1);
+        if (name.isEmpty() || name.equals(".")) {
+            name = "workspace";
+        }
+        return name + ArchiveStreamer.getExtension(format);
+    }
+
+    private String copyObject(DeduplicationIndex.Entry source, String key, long size, Retrier retrier) throws IOException, InterruptedException {
+        if (size >= COPY_OBJECT_LIMIT) {
+            return multipartUploader.copy(source.getKey(), source.getETag(), key, size, retrier);
+        }
+        CopyObjectRequest request = new CopyObjectRequest(options.getBucket(), source.getKey(), options.getBucket(), key);
+        request.setMatchingETagConstraints(Collections.singletonList(source.getETag()));
+        return retrier.call("Copy: " + key, () -> ossClient.copyObject(request).getETag());
+    }
+
+    private static long elapsedSince(long nanoTime) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - nanoTime);
+    }
+
+    private FilePath getStateDir(FilePath workspace) {
+        FilePath tempDir = WorkspaceList.tempDir(workspace);
+        return (tempDir != null ? tempDir : workspace).child("oss-archiver");
+    }
+
+    static String getRelativePath(FilePath file, FilePath parent) {
+        String filePath = file.getRemote();
+        String parentPath = parent.getRemote();
+        int start = parentPath.length();
+        if (filePath.startsWith(parentPath)) {
+            if (filePath.startsWith(File.separator, start)) {
+                start += File.separator.length();
+            }
+            return filePath.substring(start);
+        }
+        return null;
+    }
+
+    private String makeUrl(OSSClient ossClient, String bucket, String key) {
+        URI uri = ossClient.getEndpoint();
+        return uri.getScheme() + "://" + bucket + "." + uri.getAuthority() + "/" + key;
+    }
+
+    /**
+     * Turns the configured artifacts into upload tasks while walking the workspace, one task per call.
+     */
+    private class TaskFinder {
+        private final FilePath workspace;
+        private final Iterator<OSSArchiverPublisher.ArtifactConfig> configs;
+        private final KeyBuilder keys = new KeyBuilder(options.getUploadFolder());
+        private int configIndex = -1;
+        private ArtifactWalker walker;
+        private FilePath folderPath;
+        private String folder;
+
+        TaskFinder(FilePath workspace, List<OSSArchiverPublisher.ArtifactConfig> artifacts) {
+            this.workspace = workspace;
+            this.configs = artifacts.iterator();
+        }
+
+        UploadTask next() throws IOException, InterruptedException {
+            while (true) {
+                if (walker != null) {
+                    FilePath filePath = walker.next();
+                    if (filePath != null) {
+                        String file = getRelativePath(filePath, folderPath);
+                        if (file == null) {
+                            continue;
+                        }
+                        String key = keys.build(file);
+                        return new UploadTask(folder, file, filePath, key);
+                    }
+                    walker = null;
+                }
+                if (!configs.hasNext()) {
+                    return null;
+                }
+                OSSArchiverPublisher.ArtifactConfig config = configs.next();
+                configIndex++;
+                if (config.getFolder().startsWith("/")) {
+                    continue;
+                }
+                FilePath root = options.isStaged() ? workspace.child(String.valueOf(configIndex)) : workspace;
+                folderPath = new FilePath(root, config.getFolder());
+                folder = getRelativePath(folderPath, root);
+                if (folder == null || !folderPath.isDirectory()) {
+                    continue;
+                }
+                keys.setFolder(folder);
+                ArtifactWalker files = ArtifactWalker.open(folderPath, config.getFilename(), config.getExcludes(), config.isDefaultExcludes());
+                if (StringUtils.isNotEmpty(config.getArchive())) {
+                    FilePath first = files.next();
+                    if (first == null) {
+                        continue;
+                    }
+                    String file = getArchiveName(folder, config.getArchive());
+                    String key = keys.build(file);
+                    return new UploadTask(folder, file, folderPath, key, config, ArtifactWalker.prepend(first, files));
+                }
+                walker = files;
+            }
+        }
+    }
+
+    /**
+     * A single file to upload, or for an archived artifact the whole folder packed into one object.
+     */
+    public static class UploadTask {
+        private final String folder;
+        private final String file;
+        private final FilePath filePath;
+        private final String key;
+        private final OSSArchiverPublisher.ArtifactConfig archiveConfig;
+        private final ArtifactWalker archiveFiles;
+        private long discoveredAt;
+
+        UploadTask(String folder, String file, FilePath filePath, String key) {
+            this(folder, file, filePath, key, null, null);
+        }
+
+        UploadTask(String folder, String file, FilePath filePath, String key,
+                   OSSArchiverPublisher.ArtifactConfig archiveConfig, ArtifactWalker archiveFiles) {
+            this.folder = folder;
+            this.file = file;
+            this.filePath = filePath;
+            this.key = key;
+            this.archiveConfig = archiveConfig;
+            this.archiveFiles = archiveFiles;
+        }
+
+        public boolean isArchive() {
+            return archiveConfig != null;
+        }
+
+        public OSSArchiverPublisher.ArtifactConfig getArchiveConfig() {
+            return archiveConfig;
+        }
+
+        public ArtifactWalker getArchiveFiles() {
+            return archiveFiles;
+        }
+
+        public String getFolder() {
+            return folder;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public FilePath getFilePath() {
+            return filePath;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return milliseconds from the start of the publish until the task was found
+         */
+        public long getDiscoveredAt() {
+            return discoveredAt;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package io.jenkins.plugins.ossarchiver;
+
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.common.StandardUsernamePasswordCredentials;
+import hudson.model.Run;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pre-signed links to objects of a private bucket, signed with the client of {@link OSSClientCache}.
+ * <p>
+ * A link is handed out again for half of its validity, so every link served stays valid for at least the other half.
+ * At most {@link #MAX_ENTRIES} links are kept, least recently used and expired ones are dropped first.
+ */
+public final class PresignedUrlCache {
+    private static final int MAX_ENTRIES = 10000;
+
+    private static final Map<String, Entry> ENTRIES = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES || eldest.getValue().isExpired(System.currentTimeMillis());
+        }
+    };
+
+    private PresignedUrlCache() {
+    }
+
+    /**
+     * @param run    build whose credentials context is used to sign
+     * @param target target the object was uploaded to
+     * @return a link to {@code key} in {@code bucket} valid for the configured expiry
+     */
+    public static String get(Run<?, ?> run, OSSTarget target, String bucket, String key) {
+        OSSArchiverConfiguration configuration = OSSArchiverConfiguration.get();
+        String cacheKey = target.getEndPoint() + '\n' + target.getCredentialsId() + '\n' + bucket + '\n' + key;
+        long now = System.currentTimeMillis();
+        synchronized (ENTRIES) {
+            Entry entry = ENTRIES.get(cacheKey);
+            if (entry != null && !entry.isExpired(now)) {
+                return entry.url;
+            }
+        }
+
+        StandardUsernamePasswordCredentials credentials = CredentialsProvider.findCredentialById(
+                target.getCredentialsId(), StandardUsernamePasswordCredentials.class, run);
+        if (credentials == null) {
+            throw new IllegalArgumentException("Credentials not found: id=" + target.getCredentialsId());
+        }
+        long expiry = TimeUnit.MINUTES.toMillis(configuration.getPresignedUrlExpiryOrDefault());
+        String url;
+        try (OSSClientCache.Lease lease = OSSClientCache.acquire(configuration.createClientSettings(target, credentials))) {
+            url = lease.getClient().generatePresignedUrl(bucket, key, new Date(now + expiry)).toString();
+        }
+        synchronized (ENTRIES) {
+            ENTRIES.put(cacheKey, new Entry(url, now + expiry / 2));
+        }
+        return url;
+    }
+
+    /**
+     * Drops every link, called when the global configuration changes.
+     */
+    public static void invalidateAll() {
+        synchronized (ENTRIES) {
+            ENTRIES.clear();
+        }
+    }
+
+    private static class Entry {
+        private final String url;
+        private final long reusableUntil;
+
+        Entry(String url, long reusableUntil) {
+            this.url = url;
+            this.reusableUntil = reusableUntil;
+        }
+
+        boolean isExpired(long now) {
+            return now >= reusableUntil;
+        }
+    }
+}
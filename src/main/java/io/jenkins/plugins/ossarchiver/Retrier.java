@@ -0,0 +1,133 @@
+package io.jenkins.plugins.ossarchiver;
+
+import com.aliyun.oss.ClientErrorCode;
+import com.aliyun.oss.ClientException;
+import com.aliyun.oss.InconsistentException;
+import com.aliyun.oss.OSSErrorCode;
+import com.aliyun.oss.OSSException;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Retries OSS requests that failed with a transient error, with exponential backoff and full jitter.
+ * <p>
+ * One retrier is created per publish and {@link #forTask() forked} per upload: the forks share the retry budget of
+ * the publish and the {@link CircuitBreaker} of the endpoint, and count their own retries.
+ */
+public class Retrier {
+    private static final Set<String> RETRYABLE_ERROR_CODES = new HashSet<>(Arrays.asList(
+            OSSErrorCode.INTERNAL_ERROR,
+            OSSErrorCode.REQUEST_TIMEOUT,
+            "ServiceUnavailable",
+            "SlowDown",
+            "QpsLimitExceeded",
+            "DownloadTrafficRateLimitExceeded",
+            "UploadTrafficRateLimitExceeded"
+    ));
+    private static final Set<String> FATAL_CLIENT_ERROR_CODES = new HashSet<>(Arrays.asList(
+            ClientErrorCode.NONREPEATABLE_REQUEST,
+            ClientErrorCode.INVALID_RESPONSE
+    ));
+
+    private final RetryPolicy policy;
+    private final AtomicInteger budget;
+    private final CircuitBreaker circuitBreaker;
+    private final OSSArchiverLogger logger;
+    private final Sleeper sleeper;
+    private final AtomicInteger retries = new AtomicInteger();
+
+    public Retrier(RetryPolicy policy, CircuitBreaker circuitBreaker, OSSArchiverLogger logger) {
+        this(policy, circuitBreaker, logger, Thread::sleep);
+    }
+
+    Retrier(RetryPolicy policy, CircuitBreaker circuitBreaker, OSSArchiverLogger logger, Sleeper sleeper) {
+        this(policy, new AtomicInteger(policy.getBudget()), circuitBreaker, logger, sleeper);
+    }
+
+    private Retrier(RetryPolicy policy, AtomicInteger budget, CircuitBreaker circuitBreaker, OSSArchiverLogger logger,
+                    Sleeper sleeper) {
+        this.policy = policy;
+        this.budget = budget;
+        this.circuitBreaker = circuitBreaker;
+        this.logger = logger;
+        this.sleeper = sleeper;
+    }
+
+    public Retrier forTask() {
+        return new Retrier(policy, budget, circuitBreaker, logger, sleeper);
+    }
+
+    /**
+     * @return retries made through this retrier so far
+     */
+    public int getRetries() {
+        return retries.get();
+    }
+
+    public <T> T call(String description, Request<T> request) throws IOException, InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            circuitBreaker.check();
+            try {
+                T result = request.call();
+                circuitBreaker.onSuccess();
+                return result;
+            } catch (RuntimeException | IOException e) {
+                if (!isRetryable(e)) {
+                    throw e;
+                }
+                circuitBreaker.onFailure();
+                if (attempt >= policy.getMaxRetries()) {
+                    throw e;
+                }
+                if (budget.getAndDecrement() <= 0) {
+                    logger.warn("Retry budget exhausted, not retrying: " + description);
+                    throw e;
+                }
+                long delay = ThreadLocalRandom.current().nextLong(backoff(attempt) + 1);
+                retries.incrementAndGet();
+                logger.warn(String.format("Retrying in %dms (%d/%d): %s, %s",
+                        delay, attempt + 1, policy.getMaxRetries(), description, OSSUploader.getErrorCode(e)));
+                sleeper.sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * @return upper bound of the delay before retry {@code attempt + 1}
+     */
+    long backoff(int attempt) {
+        long delay = policy.getBaseDelay() << Math.min(attempt, 30);
+        return delay <= 0 ? policy.getMaxDelay() : Math.min(delay, policy.getMaxDelay());
+    }
+
+    static boolean isRetryable(Throwable e) {
+        if (e instanceof OSSException) {
+            return RETRYABLE_ERROR_CODES.contains(((OSSException) e).getErrorCode());
+        }
+        if (e instanceof ClientException) {
+            return !FATAL_CLIENT_ERROR_CODES.contains(((ClientException) e).getErrorCode());
+        }
+        // The content was damaged on the way, sending it again may well succeed
+        if (e instanceof ChecksumMismatchException || e instanceof InconsistentException) {
+            return true;
+        }
+        // Errors reading the file, possibly through the agent channel, are not going to fix themselves
+        return false;
+    }
+
+    interface Sleeper {
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    /**
+     * A single OSS request, repeated as a whole on every attempt.
+     */
+    public interface Request<T> {
+        T call() throws IOException, InterruptedException;
+    }
+}
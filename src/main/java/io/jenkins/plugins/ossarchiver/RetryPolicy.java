@@ -0,0 +1,44 @@
+package io.jenkins.plugins.ossarchiver;
+
+import java.io.Serializable;
+
+/**
+ * Settings of {@link Retrier}, sent along with the {@link UploadOptions} when uploading from an agent.
+ */
+public class RetryPolicy implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int maxRetries;
+    private final long baseDelay;
+    private final long maxDelay;
+    private final int budget;
+
+    /**
+     * @param maxRetries retries of a single request after its first attempt
+     * @param baseDelay  milliseconds before the first retry, doubled on every further retry
+     * @param maxDelay   upper bound of a single delay in milliseconds
+     * @param budget     retries allowed for all requests of one publish together
+     */
+    public RetryPolicy(int maxRetries, long baseDelay, long maxDelay, int budget) {
+        this.maxRetries = maxRetries;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+        this.budget = budget;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public long getBaseDelay() {
+        return baseDelay;
+    }
+
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+}
@@ -0,0 +1,58 @@
+package io.jenkins.plugins.ossarchiver;
+
+import hudson.FilePath;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Copies the files matched by each artifact to a staging folder on the same node, so an asynchronous upload is
+ * not affected by the next build reusing the workspace. Files of the n-th artifact go to the subfolder n, keeping
+ * their path relative to the workspace and their timestamps.
+ */
+public class StageCallable extends MasterToSlaveFileCallable<Integer> {
+    private static final long serialVersionUID = 1L;
+
+    private final List<OSSArchiverPublisher.ArtifactConfig> artifacts;
+    private final String stagingDir;
+
+    public StageCallable(List<OSSArchiverPublisher.ArtifactConfig> artifacts, String stagingDir) {
+        this.artifacts = artifacts;
+        this.stagingDir = stagingDir;
+    }
+
+    /**
+     * @return number of files staged
+     */
+    @Override
+    public Integer invoke(File workspace, VirtualChannel channel) throws IOException, InterruptedException {
+        FilePath root = new FilePath(workspace);
+        int count = 0;
+        for (int i = 0; i < artifacts.size(); i++) {
+            OSSArchiverPublisher.ArtifactConfig config = artifacts.get(i);
+            FilePath folderPath = new FilePath(root, config.getFolder());
+            if (config.getFolder().startsWith("/") || OSSUploader.getRelativePath(folderPath, root) == null || !folderPath.isDirectory()) {
+                continue;
+            }
+            File target = new File(stagingDir, String.valueOf(i));
+            ArtifactWalker walker = ArtifactWalker.open(folderPath, config.getFilename(), config.getExcludes(), config.isDefaultExcludes());
+            for (FilePath file = walker.next(); file != null; file = walker.next()) {
+                String relativePath = OSSUploader.getRelativePath(file, root);
+                if (relativePath == null) {
+                    continue;
+                }
+                File stagedFile = new File(target, relativePath);
+                Files.createDirectories(stagedFile.getParentFile().toPath());
+                Files.copy(new File(file.getRemote()).toPath(), stagedFile.toPath(),
+                        StandardCopyOption.COPY_ATTRIBUTES, StandardCopyOption.REPLACE_EXISTING);
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,76 @@
+package io.jenkins.plugins.ossarchiver;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * Charges the bytes read from a stream to an {@link UploadGate}, in chunks to keep round trips to a remote gate few.
+ */
+public class ThrottledInputStream extends FilterInputStream {
+    private static final int CHUNK_SIZE = 256 * 1024;
+
+    private final UploadGate gate;
+    private long pending;
+
+    public ThrottledInputStream(InputStream in, UploadGate gate) {
+        super(in);
+        this.gate = gate;
+    }
+
+    /**
+     * @return {@code in} wrapped when there is a gate, otherwise {@code in} itself
+     */
+    public static InputStream wrap(InputStream in, UploadGate gate) {
+        return gate != null ? new ThrottledInputStream(in, gate) : in;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            charge(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            charge(n);
+        }
+        return n;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            super.close();
+        }
+    }
+
+    private void charge(int bytes) throws IOException {
+        pending += bytes;
+        if (pending >= CHUNK_SIZE) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        if (pending == 0) {
+            return;
+        }
+        long bytes = pending;
+        pending = 0;
+        try {
+            gate.acquireBytes(bytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while throttled");
+        }
+    }
+}
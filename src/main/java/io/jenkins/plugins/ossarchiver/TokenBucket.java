@@ -0,0 +1,64 @@
+package io.jenkins.plugins.ossarchiver;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A bytes per second limit allowing bursts of one second worth of bytes.
+ * <p>
+ * Bytes are charged after they were read, so the bucket may go into debt; the caller then waits until the debt is
+ * paid back. Waiting is left to the caller, so one wait covers several buckets at once.
+ */
+public class TokenBucket {
+    private final LongSupplier clock;
+    private long rate;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(long rate) {
+        this(rate, System::nanoTime);
+    }
+
+    /**
+     * @param clock current time in nanoseconds, like {@link System#nanoTime()}
+     */
+    TokenBucket(long rate, LongSupplier clock) {
+        this.clock = clock;
+        this.rate = rate;
+        this.tokens = rate;
+        this.lastRefill = clock.getAsLong();
+    }
+
+    public synchronized long getRate() {
+        return rate;
+    }
+
+    public synchronized void setRate(long rate) {
+        refill();
+        this.rate = rate;
+        tokens = Math.min(tokens, rate);
+    }
+
+    /**
+     * @return milliseconds to wait until the bucket is out of debt, 0 when unlimited or not in debt
+     */
+    public synchronized long charge(long bytes) {
+        if (rate <= 0) {
+            return 0;
+        }
+        refill();
+        tokens -= bytes;
+        if (tokens >= 0) {
+            return 0;
+        }
+        return (long) Math.ceil(-tokens * 1000 / rate);
+    }
+
+    private void refill() {
+        long now = clock.getAsLong();
+        if (rate > 0) {
+            tokens = Math.min(rate, tokens + (double) rate * (now - lastRefill) / TimeUnit.SECONDS.toNanos(1));
+        }
+        lastRefill = now;
+    }
+}
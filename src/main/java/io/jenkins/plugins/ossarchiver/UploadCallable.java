@@ -0,0 +1,69 @@
+package io.jenkins.plugins.ossarchiver;
+
+import hudson.FilePath;
+import hudson.model.TaskListener;
+import hudson.remoting.VirtualChannel;
+import jenkins.MasterToSlaveFileCallable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Runs {@link OSSUploader} on the node owning the workspace, so artifacts go straight from the agent to OSS
+ * and only the {@link UploadReport} travels back to the controller.
+ */
+public class UploadCallable extends MasterToSlaveFileCallable<UploadReport> {
+    private static final long serialVersionUID = 1L;
+
+    private final UploadOptions options;
+    private final List<OSSArchiverPublisher.ArtifactConfig> artifacts;
+    private final TaskListener listener;
+    private final UploadGate gate;
+    private final boolean throttled;
+
+    /**
+     * @param gate      proxy of the controller side {@link UploadScheduler.Session} or {@link MonitoredGate}, or null
+     * @param throttled whether the gate limits bytes, otherwise they are not sent to it
+     */
+    public UploadCallable(UploadOptions options, List<OSSArchiverPublisher.ArtifactConfig> artifacts, TaskListener listener,
+                          UploadGate gate, boolean throttled) {
+        this.options = options;
+        this.artifacts = artifacts;
+        this.listener = listener;
+        this.gate = gate;
+        this.throttled = throttled;
+    }
+
+    @Override
+    public UploadReport invoke(File workspace, VirtualChannel channel) throws IOException, InterruptedException {
+        OSSUploader uploader = new OSSUploader(options, new OSSArchiverLogger(listener));
+        uploader.setGate(throttled || gate == null ? gate : new SlotGate(gate));
+        return uploader.upload(new FilePath(workspace), artifacts);
+    }
+
+    /**
+     * Only takes slots through a gate without rate limits, saving a round trip for every chunk read.
+     */
+    private static class SlotGate implements UploadGate {
+        private final UploadGate gate;
+
+        SlotGate(UploadGate gate) {
+            this.gate = gate;
+        }
+
+        @Override
+        public void acquireSlot() throws InterruptedException {
+            gate.acquireSlot();
+        }
+
+        @Override
+        public void releaseSlot() {
+            gate.releaseSlot();
+        }
+
+        @Override
+        public void acquireBytes(long bytes) {
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package io.jenkins.plugins.ossarchiver;
+
+/**
+ * Admits uploads and the bytes they send, see {@link UploadScheduler}.
+ * <p>
+ * When uploading from an agent the gate is a proxy exported over the agent channel, so every call is a round trip
+ * and bytes are acquired in chunks by {@link ThrottledInputStream}.
+ */
+public interface UploadGate {
+    /**
+     * Blocks until the upload of one more file may start.
+     */
+    void acquireSlot() throws InterruptedException;
+
+    void releaseSlot();
+
+    /**
+     * Charges bytes already read to the rate limits, blocking while they are exceeded.
+     */
+    void acquireBytes(long bytes) throws InterruptedException;
+}
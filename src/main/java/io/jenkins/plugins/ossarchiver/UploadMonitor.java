@@ -0,0 +1,26 @@
+package io.jenkins.plugins.ossarchiver;
+
+/**
+ * Receives the life cycle of every upload of an {@link OSSUploader}, called from the upload threads.
+ */
+public interface UploadMonitor {
+    /**
+     * A task was handed to the upload pool.
+     */
+    void queued();
+
+    /**
+     * A queued task started sending data.
+     */
+    void started();
+
+    /**
+     * A queued task was dropped without starting, because the publish was aborted.
+     */
+    void dropped();
+
+    /**
+     * A started task finished, successfully or not.
+     */
+    void finished();
+}
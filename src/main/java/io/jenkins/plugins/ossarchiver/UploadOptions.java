@@ -0,0 +1,193 @@
+package io.jenkins.plugins.ossarchiver;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+public class UploadOptions implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final OSSClientSettings clientSettings;
+    private final String bucket;
+    private final String uploadFolder;
+    private int concurrency;
+    private long multipartThreshold;
+    private long multipartPartSize;
+    private boolean deduplicate;
+    private boolean sync;
+    private boolean deleteOrphans;
+    private RetryPolicy retryPolicy;
+    private boolean staged;
+    private boolean verifyChecksums;
+    private boolean verboseLog;
+    private long progressInterval;
+    private final List<Mirror> mirrors = new ArrayList<>();
+
+    public UploadOptions(OSSClientSettings clientSettings, String bucket, String uploadFolder) {
+        this.clientSettings = clientSettings;
+        this.bucket = bucket;
+        this.uploadFolder = uploadFolder;
+    }
+
+    public OSSClientSettings getClientSettings() {
+        return clientSettings;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public String getUploadFolder() {
+        return uploadFolder;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public long getMultipartThreshold() {
+        return multipartThreshold;
+    }
+
+    public void setMultipartThreshold(long multipartThreshold) {
+        this.multipartThreshold = multipartThreshold;
+    }
+
+    public long getMultipartPartSize() {
+        return multipartPartSize;
+    }
+
+    public void setMultipartPartSize(long multipartPartSize) {
+        this.multipartPartSize = multipartPartSize;
+    }
+
+    public boolean isDeduplicate() {
+        return deduplicate;
+    }
+
+    public void setDeduplicate(boolean deduplicate) {
+        this.deduplicate = deduplicate;
+    }
+
+    public boolean isSync() {
+        return sync;
+    }
+
+    public void setSync(boolean sync) {
+        this.sync = sync;
+    }
+
+    public boolean isDeleteOrphans() {
+        return deleteOrphans;
+    }
+
+    public void setDeleteOrphans(boolean deleteOrphans) {
+        this.deleteOrphans = deleteOrphans;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * @return whether the workspace is a staging folder of {@link StageCallable}, holding the files of the n-th
+     * artifact in a subfolder named n
+     */
+    public boolean isStaged() {
+        return staged;
+    }
+
+    public void setStaged(boolean staged) {
+        this.staged = staged;
+    }
+
+    /**
+     * @return whether uploads are checked against the checksums OSS computes, and a checksum file is uploaded
+     */
+    public boolean isVerifyChecksums() {
+        return verifyChecksums;
+    }
+
+    public void setVerifyChecksums(boolean verifyChecksums) {
+        this.verifyChecksums = verifyChecksums;
+    }
+
+    /**
+     * @return whether to log every file instead of only progress summaries
+     */
+    public boolean isVerboseLog() {
+        return verboseLog;
+    }
+
+    public void setVerboseLog(boolean verboseLog) {
+        this.verboseLog = verboseLog;
+    }
+
+    /**
+     * @return milliseconds between progress summaries, 0 for none
+     */
+    public long getProgressInterval() {
+        return progressInterval;
+    }
+
+    public void setProgressInterval(long progressInterval) {
+        this.progressInterval = progressInterval;
+    }
+
+    /**
+     * @return other targets every uploaded object is copied to
+     */
+    public List<Mirror> getMirrors() {
+        return mirrors;
+    }
+
+    public void addMirror(Mirror mirror) {
+        mirrors.add(mirror);
+    }
+
+    /**
+     * A target of a fan-out publish besides the main one.
+     */
+    public static class Mirror implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final OSSClientSettings clientSettings;
+        private final String bucket;
+        private final int concurrency;
+
+        public Mirror(String name, OSSClientSettings clientSettings, String bucket, int concurrency) {
+            this.name = name;
+            this.clientSettings = clientSettings;
+            this.bucket = bucket;
+            this.concurrency = concurrency;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public OSSClientSettings getClientSettings() {
+            return clientSettings;
+        }
+
+        public String getBucket() {
+            return bucket;
+        }
+
+        /**
+         * @return files uploaded to this target at the same time
+         */
+        public int getConcurrency() {
+            return concurrency;
+        }
+    }
+}
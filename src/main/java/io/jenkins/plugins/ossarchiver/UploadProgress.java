@@ -0,0 +1,108 @@
+package io.jenkins.plugins.ossarchiver;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the files of a publish and prints a summary of them every interval, instead of a line per file.
+ * <p>
+ * Upload workers only update counters; the log is written by a timer thread, which also flushes the file lines
+ * buffered by {@link OSSArchiverLogger} in verbose mode.
+ */
+public class UploadProgress implements AutoCloseable {
+    private final OSSArchiverLogger logger;
+    private final long startTime = System.nanoTime();
+    private final AtomicInteger discovered = new AtomicInteger();
+    private final AtomicInteger done = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+    private final ScheduledExecutorService timer;
+    private volatile boolean discoveryFinished;
+
+    /**
+     * @param interval milliseconds between summaries, 0 for none
+     */
+    public UploadProgress(OSSArchiverLogger logger, long interval) {
+        this.logger = logger;
+        if (interval > 0) {
+            timer = Executors.newSingleThreadScheduledExecutor(
+                    new NamingThreadFactory(new DaemonThreadFactory(), "OSSArchiver progress"));
+            timer.scheduleAtFixedRate(this::print, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            timer = null;
+        }
+    }
+
+    public void discovered() {
+        discovered.incrementAndGet();
+    }
+
+    /**
+     * Called once every file was found, from then on the summary has a total and an ETA.
+     */
+    public void discoveryFinished() {
+        discoveryFinished = true;
+    }
+
+    /**
+     * @param size bytes sent for the file, 0 when nothing was sent
+     */
+    public void finished(long size) {
+        bytes.addAndGet(size);
+        done.incrementAndGet();
+    }
+
+    public void failed() {
+        failed.incrementAndGet();
+        done.incrementAndGet();
+    }
+
+    /**
+     * @return for example {@code 1200/5000 files, 1 failed, 350.00 MB in 20.0s, 17.50 MB/s, ETA 63s}
+     */
+    public String getSummary() {
+        int doneFiles = done.get();
+        int totalFiles = discovered.get();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        StringBuilder summary = new StringBuilder();
+        summary.append(doneFiles).append('/').append(totalFiles).append(discoveryFinished ? "" : "+").append(" files");
+        if (failed.get() > 0) {
+            summary.append(", ").append(failed.get()).append(" failed");
+        }
+        double seconds = Math.max(elapsed, 1) / 1000.0;
+        summary.append(String.format(", %.2f MB in %.1fs, %.2f MB/s", bytes.get() / 1048576.0, elapsed / 1000.0,
+                bytes.get() / 1048576.0 / seconds));
+        if (discoveryFinished && doneFiles > 0) {
+            // Files of a publish vary in size, the count is a steadier measure than bytes
+            long eta = Math.round((totalFiles - doneFiles) * seconds / doneFiles);
+            summary.append(", ETA ").append(eta).append('s');
+        }
+        return summary.toString();
+    }
+
+    private void print() {
+        try {
+            logger.flush();
+            logger.info("Progress: " + getSummary());
+        } catch (RuntimeException e) {
+            // Thrown exceptions cancel the timer, a lost line is better
+        }
+    }
+
+    /**
+     * Stops the summaries and writes what is still buffered.
+     */
+    @Override
+    public void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        logger.flush();
+    }
+}
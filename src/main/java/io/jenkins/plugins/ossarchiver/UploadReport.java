@@ -0,0 +1,96 @@
+package io.jenkins.plugins.ossarchiver;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class UploadReport implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final LinkedHashMap<String, List<UploadResult>> folders = new LinkedHashMap<>();
+    private final HashMap<String, Integer> failures = new HashMap<>();
+    private final LinkedHashMap<String, Integer> mirrored = new LinkedHashMap<>();
+    private UploadStatistics statistics;
+    private String checksumsUrl;
+
+    public List<UploadResult> addFolder(String folder) {
+        return folders.computeIfAbsent(folder, k -> new ArrayList<>());
+    }
+
+    public Map<String, List<UploadResult>> getFolders() {
+        return folders;
+    }
+
+    public long getBytesSaved() {
+        long bytesSaved = 0;
+        for (List<UploadResult> items : folders.values()) {
+            for (UploadResult item : items) {
+                if (item.isDeduplicated()) {
+                    bytesSaved += item.getSize();
+                }
+            }
+        }
+        return bytesSaved;
+    }
+
+    /**
+     * @return number of failed uploads by OSS error code, or by exception type for errors without a code
+     */
+    public Map<String, Integer> getFailures() {
+        return failures;
+    }
+
+    public int getFailureCount() {
+        int count = 0;
+        for (int failures : failures.values()) {
+            count += failures;
+        }
+        return count;
+    }
+
+    /**
+     * @return number of objects copied to each mirror target, by target name
+     */
+    public Map<String, Integer> getMirrored() {
+        return mirrored;
+    }
+
+    /**
+     * Adds the files, failures and copies of the publish to another target. Statistics are not merged and have to be
+     * computed again.
+     */
+    public void merge(UploadReport other) {
+        other.folders.forEach((folder, items) -> addFolder(folder).addAll(items));
+        other.failures.forEach((errorCode, count) -> failures.merge(errorCode, count, Integer::sum));
+        other.mirrored.forEach((target, count) -> mirrored.merge(target, count, Integer::sum));
+        if (checksumsUrl == null) {
+            checksumsUrl = other.checksumsUrl;
+        }
+    }
+
+    public UploadStatistics getStatistics() {
+        return statistics;
+    }
+
+    public void setStatistics(UploadStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * @return URL of the uploaded checksum file, null when checksums were not verified
+     */
+    public String getChecksumsUrl() {
+        return checksumsUrl;
+    }
+
+    public void setChecksumsUrl(String checksumsUrl) {
+        this.checksumsUrl = checksumsUrl;
+    }
+
+    public boolean isEmpty() {
+        return folders.isEmpty();
+    }
+}
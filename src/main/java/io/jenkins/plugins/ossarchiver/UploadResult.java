@@ -0,0 +1,137 @@
+package io.jenkins.plugins.ossarchiver;
+
+import java.io.Serializable;
+
+public class UploadResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final String file;
+    private final String key;
+    private final String url;
+    private final long size;
+    private final boolean deduplicated;
+    private String eTag;
+    private int entries;
+    private String entriesUrl;
+    private long discoveredAt;
+    private long duration = -1;
+    private int retries;
+    private String md5;
+    private String crc64;
+
+    public UploadResult(String file, String key, String url, long size, boolean deduplicated) {
+        this.file = file;
+        this.key = key;
+        this.url = url;
+        this.size = size;
+        this.deduplicated = deduplicated;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return whether the object was copied from an existing one with the same content instead of uploaded
+     */
+    public boolean isDeduplicated() {
+        return deduplicated;
+    }
+
+    /**
+     * @return ETag OSS returned for the object, null when it was left unchanged by a sync
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    public void setETag(String eTag) {
+        this.eTag = eTag;
+    }
+
+    /**
+     * @return number of files packed into this object when it is an archive, otherwise 0
+     */
+    public int getEntries() {
+        return entries;
+    }
+
+    public void setEntries(int entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * @return URL of the entry list of an archive, if one was uploaded
+     */
+    public String getEntriesUrl() {
+        return entriesUrl;
+    }
+
+    public void setEntriesUrl(String entriesUrl) {
+        this.entriesUrl = entriesUrl;
+    }
+
+    /**
+     * @return milliseconds from the start of the publish until the file was found
+     */
+    public long getDiscoveredAt() {
+        return discoveredAt;
+    }
+
+    public void setDiscoveredAt(long discoveredAt) {
+        this.discoveredAt = discoveredAt;
+    }
+
+    /**
+     * @return milliseconds spent sending the object, or -1 when it was left unchanged by a sync
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    public void setDuration(long duration) {
+        this.duration = duration;
+    }
+
+    public int getRetries() {
+        return retries;
+    }
+
+    public void setRetries(int retries) {
+        this.retries = retries;
+    }
+
+    /**
+     * @return hex MD5 of the content, only known for verified single request uploads and deduplicated objects
+     */
+    public String getMd5() {
+        return md5;
+    }
+
+    public void setMd5(String md5) {
+        this.md5 = md5;
+    }
+
+    /**
+     * @return unsigned decimal CRC64 of the content, only known for verified uploads
+     */
+    public String getCrc64() {
+        return crc64;
+    }
+
+    public void setCrc64(String crc64) {
+        this.crc64 = crc64;
+    }
+}
@@ -0,0 +1,199 @@
+package io.jenkins.plugins.ossarchiver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shares the uplink of the controller and its agents between all builds publishing at the same time.
+ * <p>
+ * Every publish opens a {@link Session}. Bytes are charged to a global, a per-job and a per-node
+ * {@link TokenBucket}, and file uploads take one of a limited number of slots. A free slot goes to the waiting
+ * session holding the fewest slots, earliest opened first, so a publish of thousands of files cannot starve a
+ * small one started after it.
+ */
+public final class UploadScheduler {
+    private static final Object LOCK = new Object();
+    private static final TokenBucket GLOBAL_BUCKET = new TokenBucket(0);
+    private static final Map<String, SharedBucket> JOB_BUCKETS = new HashMap<>();
+    private static final Map<String, SharedBucket> NODE_BUCKETS = new HashMap<>();
+    private static final List<Session> SESSIONS = new ArrayList<>();
+
+    private static int maxConcurrentUploads;
+    private static long jobRate;
+    private static long nodeRate;
+    private static int activeUploads;
+    private static int publishes;
+    private static long nextSequence;
+
+    private UploadScheduler() {
+    }
+
+    /**
+     * @param maxConcurrentUploads file uploads allowed at the same time across all builds, 0 for unlimited
+     * @param globalRate           bytes per second across all builds, 0 for unlimited
+     * @param jobRate              bytes per second of all builds of one job, 0 for unlimited
+     * @param nodeRate             bytes per second of all uploads from one node, 0 for unlimited
+     */
+    public static void configure(int maxConcurrentUploads, long globalRate, long jobRate, long nodeRate) {
+        synchronized (LOCK) {
+            UploadScheduler.maxConcurrentUploads = Math.max(0, maxConcurrentUploads);
+            UploadScheduler.jobRate = Math.max(0, jobRate);
+            UploadScheduler.nodeRate = Math.max(0, nodeRate);
+            GLOBAL_BUCKET.setRate(Math.max(0, globalRate));
+            for (SharedBucket bucket : JOB_BUCKETS.values()) {
+                bucket.setRate(UploadScheduler.jobRate);
+            }
+            for (SharedBucket bucket : NODE_BUCKETS.values()) {
+                bucket.setRate(UploadScheduler.nodeRate);
+            }
+            // A raised limit may admit waiting uploads
+            LOCK.notifyAll();
+        }
+    }
+
+    /**
+     * @param job  full name of the job
+     * @param node name of the node the workspace is on, empty for the built-in node
+     * @return a session to close when the publish ends, or null when no limit is configured
+     */
+    public static Session open(String job, String node) {
+        synchronized (LOCK) {
+            if (maxConcurrentUploads == 0 && GLOBAL_BUCKET.getRate() == 0 && jobRate == 0 && nodeRate == 0) {
+                return null;
+            }
+            Session session = new Session(nextSequence++, retain(JOB_BUCKETS, job, jobRate), retain(NODE_BUCKETS, node, nodeRate));
+            SESSIONS.add(session);
+            return session;
+        }
+    }
+
+    /**
+     * Counts a running publish until {@link #endPublish()}, whether or not it opened a session.
+     */
+    public static void startPublish() {
+        synchronized (LOCK) {
+            publishes++;
+        }
+    }
+
+    public static void endPublish() {
+        synchronized (LOCK) {
+            publishes--;
+        }
+    }
+
+    /**
+     * @return whether no publish is running, for background work that should not compete with uploads
+     */
+    public static boolean isIdle() {
+        synchronized (LOCK) {
+            return publishes == 0;
+        }
+    }
+
+    private static SharedBucket retain(Map<String, SharedBucket> buckets, String name, long rate) {
+        SharedBucket bucket = buckets.computeIfAbsent(name, k -> new SharedBucket(k, rate));
+        bucket.references++;
+        return bucket;
+    }
+
+    private static void release(Map<String, SharedBucket> buckets, SharedBucket bucket) {
+        if (--bucket.references == 0) {
+            buckets.remove(bucket.name);
+        }
+    }
+
+    /**
+     * @return whether {@code session} is the one a free slot goes to
+     */
+    private static boolean isNext(Session session) {
+        for (Session other : SESSIONS) {
+            if (other != session && other.waiting > 0
+                    && (other.active < session.active || other.active == session.active && other.sequence < session.sequence)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class SharedBucket extends TokenBucket {
+        private final String name;
+        private int references;
+
+        SharedBucket(String name, long rate) {
+            super(rate);
+            this.name = name;
+        }
+    }
+
+    public static class Session implements UploadGate, AutoCloseable {
+        private final long sequence;
+        private final SharedBucket jobBucket;
+        private final SharedBucket nodeBucket;
+        private int active;
+        private int waiting;
+        private boolean closed;
+
+        private Session(long sequence, SharedBucket jobBucket, SharedBucket nodeBucket) {
+            this.sequence = sequence;
+            this.jobBucket = jobBucket;
+            this.nodeBucket = nodeBucket;
+        }
+
+        @Override
+        public void acquireSlot() throws InterruptedException {
+            synchronized (LOCK) {
+                waiting++;
+                try {
+                    while (maxConcurrentUploads > 0 && (activeUploads >= maxConcurrentUploads || !isNext(this))) {
+                        LOCK.wait();
+                    }
+                } finally {
+                    waiting--;
+                    // When interrupted, the slot this session was next for goes to someone else
+                    LOCK.notifyAll();
+                }
+                active++;
+                activeUploads++;
+            }
+        }
+
+        @Override
+        public void releaseSlot() {
+            synchronized (LOCK) {
+                if (active > 0) {
+                    active--;
+                    activeUploads--;
+                    LOCK.notifyAll();
+                }
+            }
+        }
+
+        @Override
+        public void acquireBytes(long bytes) throws InterruptedException {
+            long wait = Math.max(GLOBAL_BUCKET.charge(bytes), Math.max(jobBucket.charge(bytes), nodeBucket.charge(bytes)));
+            if (wait > 0) {
+                Thread.sleep(wait);
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (LOCK) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                // Slots of uploads abandoned by an aborted publish
+                activeUploads -= active;
+                active = 0;
+                SESSIONS.remove(this);
+                release(JOB_BUCKETS, jobBucket);
+                release(NODE_BUCKETS, nodeBucket);
+                LOCK.notifyAll();
+            }
+        }
+    }
+}
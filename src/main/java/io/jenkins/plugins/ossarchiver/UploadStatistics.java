@@ -0,0 +1,191 @@
+package io.jenkins.plugins.ossarchiver;
+
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Aggregated timings of one publish, shown on the action page and exported through the remote API.
+ */
+@ExportedBean(defaultVisibility = 2)
+public class UploadStatistics implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int SLOWEST_FILES = 5;
+
+    private final int files;
+    private final long bytes;
+    private final long elapsed;
+    private final long discoveryTime;
+    private final int retries;
+    private final long p50;
+    private final long p95;
+    private final long p99;
+    private final List<SlowFile> slowest;
+    private final long checksumTime;
+
+    private UploadStatistics(int files, long bytes, long elapsed, long discoveryTime, int retries,
+                             long p50, long p95, long p99, List<SlowFile> slowest, long checksumTime) {
+        this.files = files;
+        this.bytes = bytes;
+        this.elapsed = elapsed;
+        this.discoveryTime = discoveryTime;
+        this.retries = retries;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+        this.slowest = slowest;
+        this.checksumTime = checksumTime;
+    }
+
+    /**
+     * @param elapsed      wall clock milliseconds of the whole publish
+     * @param checksumTime milliseconds all upload threads together spent computing checksums
+     */
+    public static UploadStatistics of(UploadReport report, long elapsed, long checksumTime) {
+        List<UploadResult> uploaded = new ArrayList<>();
+        long bytes = 0;
+        long discoveryTime = 0;
+        int retries = 0;
+        for (List<UploadResult> items : report.getFolders().values()) {
+            for (UploadResult item : items) {
+                discoveryTime = Math.max(discoveryTime, item.getDiscoveredAt());
+                if (item.getDuration() < 0) {
+                    // Unchanged file of a sync, nothing was sent
+                    continue;
+                }
+                uploaded.add(item);
+                if (!item.isDeduplicated()) {
+                    // Copied server side, the bytes were not sent
+                    bytes += item.getSize();
+                }
+                retries += item.getRetries();
+            }
+        }
+        uploaded.sort(Comparator.comparingLong(UploadResult::getDuration));
+        List<SlowFile> slowest = new ArrayList<>(SLOWEST_FILES);
+        for (int i = uploaded.size() - 1; i >= 0 && slowest.size() < SLOWEST_FILES; i--) {
+            UploadResult item = uploaded.get(i);
+            slowest.add(new SlowFile(item.getKey(), item.getSize(), item.getDuration()));
+        }
+        return new UploadStatistics(uploaded.size(), bytes, elapsed, discoveryTime, retries,
+                percentile(uploaded, 50), percentile(uploaded, 95), percentile(uploaded, 99),
+                Collections.unmodifiableList(slowest), checksumTime);
+    }
+
+    private static long percentile(List<UploadResult> sorted, int percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        // Nearest rank
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return sorted.get(Math.max(rank, 1) - 1).getDuration();
+    }
+
+    @Exported
+    public int getFiles() {
+        return files;
+    }
+
+    @Exported
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return milliseconds
+     */
+    @Exported
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    /**
+     * @return milliseconds from the start of the publish until the last file was found
+     */
+    @Exported
+    public long getDiscoveryTime() {
+        return discoveryTime;
+    }
+
+    @Exported
+    public int getRetries() {
+        return retries;
+    }
+
+    /**
+     * @return bytes per second over the whole publish
+     */
+    @Exported
+    public long getThroughput() {
+        return elapsed > 0 ? bytes * 1000 / elapsed : 0;
+    }
+
+    @Exported
+    public long getP50() {
+        return p50;
+    }
+
+    @Exported
+    public long getP95() {
+        return p95;
+    }
+
+    @Exported
+    public long getP99() {
+        return p99;
+    }
+
+    @Exported
+    public List<SlowFile> getSlowest() {
+        return slowest;
+    }
+
+    /**
+     * @return milliseconds spent computing checksums, summed over all upload threads, 0 when not verified
+     */
+    @Exported
+    public long getChecksumTime() {
+        return checksumTime;
+    }
+
+    public String getSummary() {
+        String summary = String.format("%d files, %.2f MB in %.1fs, %.2f MB/s, latency p50=%dms p95=%dms p99=%dms, %d retries",
+                files, bytes / 1048576.0, elapsed / 1000.0, getThroughput() / 1048576.0, p50, p95, p99, retries);
+        return checksumTime > 0 ? summary + ", " + checksumTime + "ms computing checksums" : summary;
+    }
+
+    @ExportedBean(defaultVisibility = 3)
+    public static class SlowFile implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String key;
+        private final long size;
+        private final long duration;
+
+        SlowFile(String key, long size, long duration) {
+            this.key = key;
+            this.size = size;
+            this.duration = duration;
+        }
+
+        @Exported
+        public String getKey() {
+            return key;
+        }
+
+        @Exported
+        public long getSize() {
+            return size;
+        }
+
+        @Exported
+        public long getDuration() {
+            return duration;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package io.jenkins.plugins.ossarchiver;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Blocks a pipeline until the asynchronous {@code ossArchiver} publishes of the build finished, without holding an
+ * executor thread while waiting.
+ */
+public class WaitForOssArchiveStep extends Step {
+    private boolean failOnError = true;
+
+    @DataBoundConstructor
+    public WaitForOssArchiveStep() {
+    }
+
+    public boolean isFailOnError() {
+        return failOnError;
+    }
+
+    /**
+     * @param failOnError whether the step fails when an upload failed, true by default
+     */
+    @DataBoundSetter
+    public void setFailOnError(boolean failOnError) {
+        this.failOnError = failOnError;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) {
+        return new Execution(context, failOnError);
+    }
+
+    public static class Execution extends StepExecution {
+        private static final long serialVersionUID = 1L;
+
+        private final boolean failOnError;
+
+        Execution(StepContext context, boolean failOnError) {
+            super(context);
+            this.failOnError = failOnError;
+        }
+
+        @Override
+        public boolean start() throws Exception {
+            return check();
+        }
+
+        @Override
+        public void onResume() {
+            try {
+                check();
+            } catch (Exception e) {
+                getContext().onFailure(e);
+            }
+        }
+
+        /**
+         * @return whether the step completed
+         */
+        private boolean check() throws Exception {
+            Run<?, ?> run = getContext().get(Run.class);
+            if (AsyncUploadQueue.whenFinished(run, this::recheck)) {
+                getContext().get(TaskListener.class).getLogger().println("Waiting for OSS archive uploads to finish");
+                return false;
+            }
+            int failed = 0;
+            for (OSSArchiverAction action : run.getActions(OSSArchiverAction.class)) {
+                if (action.getStatus() == OSSArchiverAction.Status.FAILED) {
+                    failed++;
+                }
+            }
+            if (failed > 0 && failOnError) {
+                getContext().onFailure(new AbortException(failed + " OSS archive uploads failed"));
+            } else {
+                getContext().onSuccess(null);
+            }
+            return true;
+        }
+
+        private void recheck() {
+            try {
+                check();
+            } catch (Exception e) {
+                getContext().onFailure(e);
+            }
+        }
+    }
+
+    @Extension
+    public static class DescriptorImpl extends StepDescriptor {
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(Run.class, TaskListener.class)));
+        }
+
+        @Override
+        public String getFunctionName() {
+            return "waitForOssArchive";
+        }
+
+        @NonNull
+        @Override
+        public String getDisplayName() {
+            return Messages.WaitForOssArchive_DisplayName();
+        }
+    }
+}
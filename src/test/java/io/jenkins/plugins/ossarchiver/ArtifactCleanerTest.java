@@ -0,0 +1,49 @@
+package io.jenkins.plugins.ossarchiver;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ArtifactCleanerTest {
+    @Test
+    public void buildNumberAfterJobName() {
+        assertEquals("folder/job/", ArtifactCleaner.getBuildsFolder("${JOB_NAME}/${BUILD_NUMBER}", "folder/job"));
+        assertEquals("folder/job/", ArtifactCleaner.getBuildsFolder("$JOB_NAME/$BUILD_NUMBER", "folder/job"));
+    }
+
+    @Test
+    public void buildId() {
+        assertEquals("build/job/", ArtifactCleaner.getBuildsFolder("build/${JOB_NAME}/${BUILD_ID}", "job"));
+    }
+
+    @Test
+    public void staticFoldersAroundBuild() {
+        assertEquals("build/job/artifacts/",
+                ArtifactCleaner.getBuildsFolder("build//${JOB_NAME}/artifacts/${BUILD_NUMBER}/files", "job"));
+    }
+
+    @Test
+    public void noBuildSegment() {
+        assertNull(ArtifactCleaner.getBuildsFolder("build/${JOB_NAME}", "job"));
+        assertNull(ArtifactCleaner.getBuildsFolder("build/${JOB_NAME}/latest", "job"));
+    }
+
+    @Test
+    public void buildVariableWithSuffix() {
+        // Not a folder per build
+        assertNull(ArtifactCleaner.getBuildsFolder("build/${JOB_NAME}/${BUILD_NUMBER}-release", "job"));
+        assertNull(ArtifactCleaner.getBuildsFolder("build/${JOB_NAME}/build-${BUILD_NUMBER}", "job"));
+    }
+
+    @Test
+    public void buildBeforeJobName() {
+        assertNull(ArtifactCleaner.getBuildsFolder("build/${BUILD_NUMBER}", "job"));
+        assertNull(ArtifactCleaner.getBuildsFolder("${BUILD_NUMBER}/${JOB_NAME}", "job"));
+    }
+
+    @Test
+    public void otherVariableBeforeBuild() {
+        assertNull(ArtifactCleaner.getBuildsFolder("${BRANCH_NAME}/${JOB_NAME}/${BUILD_NUMBER}", "job"));
+    }
+}
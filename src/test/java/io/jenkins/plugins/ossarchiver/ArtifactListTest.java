@@ -0,0 +1,141 @@
+package io.jenkins.plugins.ossarchiver;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ArtifactListTest {
+    private static final String ORIGIN = "https://bucket.oss-cn-hangzhou.aliyuncs.com/";
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private static UploadResult result(String file, String key) {
+        return new UploadResult(file, key, ORIGIN + key, 100, false);
+    }
+
+    private ArtifactList roundTrip(ArtifactList list) throws IOException {
+        File file = new File(temp.getRoot(), "artifacts.gz");
+        list.save(file);
+        return ArtifactList.load(file);
+    }
+
+    @Test
+    public void roundTripKeepsEntries() throws IOException {
+        UploadReport report = new UploadReport();
+        UploadResult jar = result("app.jar", "job/1/target/app.jar");
+        jar.setETag("\"ETAG\"");
+        jar.setMd5("0cc175b9c0f1b6a831c399e269772661");
+        jar.setCrc64("18446744073709551615");
+        report.addFolder("target").add(jar);
+        report.addFolder("logs").add(result("build.log", "job/1/logs/build.log"));
+
+        ArtifactList loaded = roundTrip(ArtifactList.of(report));
+        assertEquals(Arrays.asList("target", "logs"), loaded.getFolders());
+        assertEquals("bucket", loaded.getBucket());
+        List<ArtifactList.Entry> entries = loaded.getEntries();
+        assertEquals(2, entries.size());
+        ArtifactList.Entry entry = entries.get(0);
+        assertEquals("target", entry.getFolder());
+        assertEquals("app.jar", entry.getFile());
+        assertEquals("job/1/target/app.jar", loaded.getObjectKey(entry));
+        assertEquals(ORIGIN + "job/1/target/app.jar", loaded.getUrl(entry));
+        assertEquals(100, entry.getSize());
+        assertEquals("\"ETAG\"", entry.getETag());
+        assertEquals("0cc175b9c0f1b6a831c399e269772661", entry.getMd5());
+        assertEquals("18446744073709551615", entry.getCrc64());
+        assertEquals("logs", entries.get(1).getFolder());
+        assertNull(entries.get(1).getMd5());
+    }
+
+    @Test
+    public void escapesSeparatorsInNames() throws IOException {
+        String[] names = {"tab\there", "line\nbreak", "carriage\rreturn", "back\\slash", "trailing\\", "\\t literal"};
+        UploadReport report = new UploadReport();
+        List<UploadResult> items = report.addFolder("folder\twith\\odd\nname");
+        for (String name : names) {
+            items.add(result(name, "job/1/" + name));
+        }
+
+        ArtifactList loaded = roundTrip(ArtifactList.of(report));
+        assertEquals(Collections.singletonList("folder\twith\\odd\nname"), loaded.getFolders());
+        assertEquals(names.length, loaded.getEntries().size());
+        for (int i = 0; i < names.length; i++) {
+            ArtifactList.Entry entry = loaded.getEntries().get(i);
+            assertEquals(names[i], entry.getFile());
+            assertEquals("folder\twith\\odd\nname", entry.getFolder());
+            assertEquals("job/1/" + names[i], loaded.getObjectKey(entry));
+        }
+    }
+
+    @Test
+    public void keepsFoldersWithoutEntries() throws IOException {
+        UploadReport report = new UploadReport();
+        report.addFolder("failed");
+        report.addFolder("target").add(result("app.jar", "job/1/app.jar"));
+        report.addFolder("empty");
+
+        ArtifactList loaded = roundTrip(ArtifactList.of(report));
+        assertEquals(Arrays.asList("failed", "target", "empty"), loaded.getFolders());
+        assertEquals(1, loaded.getEntries().size());
+        assertEquals("target", loaded.getEntries().get(0).getFolder());
+    }
+
+    @Test
+    public void readsListsWithoutChecksums() throws IOException {
+        File file = temp.newFile("old.gz");
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(file)), StandardCharsets.UTF_8)) {
+            writer.write("oss-archiver-artifacts\t1\n");
+            writer.write("B\t" + ORIGIN + "job/1/\n");
+            writer.write("F\ttarget\n");
+            writer.write("E\tapp.jar\tapp.jar\t100\t\"ETAG\"\n");
+            writer.write("E\tapp.jar.entries.txt\tapp.jar.entries.txt\t-1\t\n");
+            writer.write("D\ttarget\n");
+        }
+
+        ArtifactList loaded = ArtifactList.load(file);
+        assertEquals(Collections.singletonList("target"), loaded.getFolders());
+        assertEquals(2, loaded.getEntries().size());
+        ArtifactList.Entry entry = loaded.getEntries().get(0);
+        assertEquals("job/1/app.jar", loaded.getObjectKey(entry));
+        assertEquals("\"ETAG\"", entry.getETag());
+        assertNull(entry.getMd5());
+        assertNull(entry.getCrc64());
+        ArtifactList.Entry manifest = loaded.getEntries().get(1);
+        assertEquals(-1, manifest.getSize());
+        assertNull(manifest.getETag());
+    }
+
+    @Test
+    public void legacyListsKeepWholeUrls() throws IOException {
+        Map<String, List<Pair<String, String>>> legacy = new LinkedHashMap<>();
+        legacy.put("target", Collections.singletonList(Pair.of("app.jar", ORIGIN + "job/1/app.jar")));
+        legacy.put("empty", Collections.emptyList());
+
+        ArtifactList loaded = roundTrip(ArtifactList.fromLegacy(legacy));
+        assertEquals(Arrays.asList("target", "empty"), loaded.getFolders());
+        assertNull(loaded.getBucket());
+        ArtifactList.Entry entry = loaded.getEntries().get(0);
+        assertEquals("app.jar", entry.getFile());
+        assertEquals(ORIGIN + "job/1/app.jar", loaded.getUrl(entry));
+        assertNull(loaded.getObjectKey(entry));
+        assertEquals(-1, entry.getSize());
+    }
+}
@@ -0,0 +1,29 @@
+package io.jenkins.plugins.ossarchiver;
+
+import org.junit.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks of this package with {@code mvn test -Dbenchmark}, not part of the regular test run.
+ * <p>
+ * Every benchmark reports operations per second, and the GC profiler adds the allocation rate and bytes allocated
+ * per operation. Results are also written to {@code target/jmh-report.json} to compare runs.
+ */
+public class BenchmarkRunner {
+    @Test
+    public void runBenchmarks() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(System.getProperty("benchmark.include", BenchmarkRunner.class.getPackage().getName() + "\\..*Benchmark\\."))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-report.json")
+                .shouldFailOnError(true)
+                .build();
+        new Runner(options).run();
+    }
+}
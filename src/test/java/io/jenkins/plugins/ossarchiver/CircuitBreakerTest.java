@@ -0,0 +1,88 @@
+package io.jenkins.plugins.ossarchiver;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+    private static final int THRESHOLD = 20;
+    private static final long OPEN_TIME = TimeUnit.SECONDS.toMillis(30);
+
+    private long now = 1000;
+    private final CircuitBreaker breaker = new CircuitBreaker("test", () -> now);
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            breaker.onFailure();
+        }
+    }
+
+    @Test
+    public void opensAfterThreshold() throws Exception {
+        fail(THRESHOLD - 1);
+        breaker.check();
+        breaker.onFailure();
+        assertThrows(CircuitBreaker.OpenException.class, breaker::check);
+        now += OPEN_TIME - 1;
+        assertThrows(CircuitBreaker.OpenException.class, breaker::check);
+    }
+
+    @Test
+    public void successResetsCount() throws Exception {
+        fail(THRESHOLD - 1);
+        breaker.onSuccess();
+        fail(THRESHOLD - 1);
+        breaker.check();
+    }
+
+    @Test
+    public void halfOpenFailureOpensAgain() throws Exception {
+        fail(THRESHOLD);
+        now += OPEN_TIME;
+        // Half open, requests go through
+        breaker.check();
+        breaker.onFailure();
+        assertThrows(CircuitBreaker.OpenException.class, breaker::check);
+    }
+
+    @Test
+    public void halfOpenSuccessCloses() throws Exception {
+        fail(THRESHOLD);
+        now += OPEN_TIME;
+        breaker.check();
+        breaker.onSuccess();
+        fail(THRESHOLD - 1);
+        breaker.check();
+    }
+
+    @Test
+    public void sharedPerEndpointAndBucket() {
+        CircuitBreaker a = CircuitBreaker.of("https://shared.example.com", "bucket");
+        assertSame(a, CircuitBreaker.of("https://shared.example.com", "bucket"));
+        assertNotSame(a, CircuitBreaker.of("https://shared.example.com", "other"));
+    }
+
+    @Test
+    public void idleOnceUnusedForIdleTime() throws Exception {
+        assertFalse(breaker.isIdle(now));
+        now += CircuitBreaker.IDLE_TIME - 1;
+        breaker.check();
+        assertFalse(breaker.isIdle(now + CircuitBreaker.IDLE_TIME - 1));
+        assertTrue(breaker.isIdle(now + CircuitBreaker.IDLE_TIME));
+    }
+
+    @Test
+    public void evictsIdleBreakers() {
+        CircuitBreaker idle = CircuitBreaker.of("https://idle.example.com", "bucket");
+        CircuitBreaker.evictIdle(System.currentTimeMillis());
+        assertSame(idle, CircuitBreaker.of("https://idle.example.com", "bucket"));
+        CircuitBreaker.evictIdle(System.currentTimeMillis() + CircuitBreaker.IDLE_TIME);
+        assertNotSame(idle, CircuitBreaker.of("https://idle.example.com", "bucket"));
+    }
+}
@@ -0,0 +1,57 @@
+package io.jenkins.plugins.ossarchiver;
+
+import hudson.FilePath;
+import hudson.Util;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Walks a synthetic workspace the way artifacts are found, a tenth of the files being excluded by the pattern.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiscoveryBenchmark {
+    private static final int FILES_PER_FOLDER = 100;
+    private static final int FOLDERS_PER_FOLDER = 100;
+
+    @Param({"10000", "100000", "1000000"})
+    public int files;
+
+    private File root;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("oss-archiver-discovery").toFile();
+        for (int i = 0; i < files; i++) {
+            int leaf = i / FILES_PER_FOLDER;
+            File folder = new File(root, "module-" + leaf / FOLDERS_PER_FOLDER + File.separator + "package-" + leaf % FOLDERS_PER_FOLDER);
+            if (i % FILES_PER_FOLDER == 0 && !folder.mkdirs()) {
+                throw new IOException("Failed to create " + folder);
+            }
+            Files.createFile(new File(folder, "file-" + i + (i % 10 == 0 ? ".log" : ".jar")).toPath());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Util.deleteRecursive(root);
+    }
+
+    @Benchmark
+    public int walk() throws IOException, InterruptedException {
+        ArtifactWalker walker = ArtifactWalker.open(new FilePath(root), "**/*.jar", null, true);
+        int count = 0;
+        while (walker.next() != null) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,201 @@
+package io.jenkins.plugins.ossarchiver;
+
+import com.aliyun.oss.common.utils.CRC64;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import hudson.Util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-process stand-in for the OSS object API, covering what {@link OSSUploader} sends for simple and multipart
+ * uploads.
+ * <p>
+ * Content is hashed and dropped, the ETag and CRC64 headers are those OSS would return. Every request is answered
+ * after {@code latency} milliseconds, and request bodies are read at no more than {@code bandwidth} bytes per second
+ * over all connections. Requests are addressed by path, the bucket is ignored.
+ */
+class FakeOssServer implements AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latency;
+    private final TokenBucket bandwidth;
+    private final Map<String, Map<Integer, Content>> uploads = new ConcurrentHashMap<>();
+    private final AtomicLong lastUploadId = new AtomicLong();
+
+    /**
+     * @param latency   milliseconds before every response
+     * @param bandwidth bytes per second, 0 for unlimited
+     */
+    FakeOssServer(long latency, long bandwidth) throws IOException {
+        this.latency = latency;
+        this.bandwidth = new TokenBucket(bandwidth);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    String getEndPoint() {
+        return "http://" + server.getAddress().getAddress().getHostAddress() + ":" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+            String method = exchange.getRequestMethod();
+            String key = exchange.getRequestURI().getPath().substring(1);
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String uploadId = query.get("uploadId");
+            if ("PUT".equals(method) && uploadId != null) {
+                Content part = read(exchange.getRequestBody());
+                Map<Integer, Content> parts = uploads.get(uploadId);
+                if (parts == null) {
+                    error(exchange, 404, "NoSuchUpload");
+                    return;
+                }
+                parts.put(Integer.parseInt(query.get("partNumber")), part);
+                respond(exchange, 200, part.getETag(), part.crc64, null);
+            } else if ("PUT".equals(method)) {
+                Content object = read(exchange.getRequestBody());
+                respond(exchange, 200, object.getETag(), object.crc64, null);
+            } else if ("POST".equals(method) && query.containsKey("uploads")) {
+                String newUploadId = Long.toString(lastUploadId.incrementAndGet());
+                uploads.put(newUploadId, new ConcurrentSkipListMap<>());
+                respond(exchange, 200, null, null, "<InitiateMultipartUploadResult><Bucket>bucket</Bucket><Key>"
+                        + Util.xmlEscape(key) + "</Key><UploadId>" + newUploadId + "</UploadId></InitiateMultipartUploadResult>");
+            } else if ("POST".equals(method) && uploadId != null) {
+                read(exchange.getRequestBody());
+                Map<Integer, Content> parts = uploads.remove(uploadId);
+                if (parts == null) {
+                    error(exchange, 404, "NoSuchUpload");
+                    return;
+                }
+                Long crc = null;
+                for (Content part : parts.values()) {
+                    crc = crc == null ? part.crc64 : CRC64.combine(crc, part.crc64, part.length);
+                }
+                String eTag = Util.getDigestOf(uploadId).toUpperCase(Locale.ENGLISH) + "-" + parts.size();
+                respond(exchange, 200, null, crc, "<CompleteMultipartUploadResult><Location>" + Util.xmlEscape(key)
+                        + "</Location><Bucket>bucket</Bucket><Key>" + Util.xmlEscape(key) + "</Key><ETag>&quot;" + eTag
+                        + "&quot;</ETag></CompleteMultipartUploadResult>");
+            } else if ("DELETE".equals(method) && uploadId != null) {
+                uploads.remove(uploadId);
+                respond(exchange, 204, null, null, null);
+            } else {
+                error(exchange, 501, "NotImplemented");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error(exchange, 503, "ServiceUnavailable");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Content read(InputStream inputStream) throws IOException, InterruptedException {
+        MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        CRC64 crc64 = new CRC64();
+        byte[] buffer = new byte[64 * 1024];
+        long length = 0;
+        for (int n = inputStream.read(buffer); n >= 0; n = inputStream.read(buffer)) {
+            md5.update(buffer, 0, n);
+            crc64.update(buffer, 0, n);
+            length += n;
+            long wait = bandwidth.charge(n);
+            if (wait > 0) {
+                Thread.sleep(wait);
+            }
+        }
+        return new Content(Util.toHexString(md5.digest()).toUpperCase(Locale.ENGLISH), crc64.getValue(), length);
+    }
+
+    private void respond(HttpExchange exchange, int status, String eTag, Long crc64, String body) throws IOException {
+        exchange.getResponseHeaders().set("x-oss-request-id", Long.toHexString(System.nanoTime()));
+        if (eTag != null) {
+            exchange.getResponseHeaders().set("ETag", "\"" + eTag + "\"");
+        }
+        if (crc64 != null) {
+            exchange.getResponseHeaders().set("x-oss-hash-crc64ecma", Long.toUnsignedString(crc64));
+        }
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    private void error(HttpExchange exchange, int status, String code) throws IOException {
+        respond(exchange, status, null, null, "<Error><Code>" + code + "</Code><Message>" + code
+                + "</Message><RequestId>0</RequestId><HostId>localhost</HostId></Error>");
+    }
+
+    private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator < 0) {
+                parameters.put(URLDecoder.decode(parameter, "UTF-8"), "");
+            } else {
+                parameters.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+            }
+        }
+        return parameters;
+    }
+
+    private static class Content {
+        private final String md5;
+        private final long crc64;
+        private final long length;
+
+        Content(String md5, long crc64, long length) {
+            this.md5 = md5;
+            this.crc64 = crc64;
+            this.length = length;
+        }
+
+        String getETag() {
+            return md5;
+        }
+    }
+}
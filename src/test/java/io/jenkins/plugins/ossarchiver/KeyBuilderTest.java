@@ -0,0 +1,187 @@
+package io.jenkins.plugins.ossarchiver;
+
+import hudson.FilePath;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that {@link KeyBuilder} gives the keys the uploader built before it, kept below as the oracle, over a fixed
+ * corpus of upload folders, artifact folders and files, with "/" and "\" as the platform separator.
+ */
+public class KeyBuilderTest {
+    private static final String[] UPLOAD_FOLDERS = {
+            "", ".", "..", "/", "\\", "//", "\\\\", "\\\\server\\share", "C:\\", "c:/", "C:", "C:relative", "1:/",
+            "build/my-job/42", "build//my-job///42/", "/build/my-job/42", "\\build\\my-job", "./build/./42",
+            "build/../other", "../build", "../../build/42", "/../build", "\\\\..\\build", "C:\\..\\build",
+            "a/b/../../..", "a/b/../../../c", "/a/../..", "a/./../b", "...", "a/.../b", ".a/b.", "a\\/b", "build/\\"
+    };
+    private static final String[] FOLDERS = {
+            "", ".", "..", "target", "target/classes", "target//classes/", "./target", "target/..", "target/../..",
+            "../../outside", "a/b/../c", "a\\b", "a\\\\b\\", "..\\up", ".hidden", "a/./b/."
+    };
+    private static final String[] FILES = {
+            "app.jar", "lib/app.jar", "lib//app.jar", "./app.jar", "lib/./app.jar", "lib/../app.jar", "../app.jar",
+            "../../../../../app.jar", "lib/..", "..", ".", "lib\\app.jar", "lib\\..\\..\\app.jar", "a/b/c/d/e/f/g/h/i/j",
+            "a/b/c/d/e/f/g/h/i/j/../../../../../../../../../../../k", "...", "..a", "a..", "/app.jar", "\\app.jar",
+            "lib/", "lib\\"
+    };
+    private static final char[] SEPARATORS = {'/', '\\'};
+
+    @Test
+    public void buildMatchesOldKeys() {
+        for (char separator : SEPARATORS) {
+            for (String uploadFolder : UPLOAD_FOLDERS) {
+                // One builder for every folder and file, as the uploader reuses it for a whole publish
+                KeyBuilder keys = new KeyBuilder(uploadFolder, separator);
+                for (String folder : FOLDERS) {
+                    String platformFolder = toPlatform(folder, separator);
+                    keys.setFolder(platformFolder);
+                    for (String file : FILES) {
+                        String platformFile = toPlatform(file, separator);
+                        assertEquals("upload folder " + uploadFolder + ", folder " + platformFolder + ", file " + platformFile
+                                        + ", separator " + separator,
+                                makeKey(uploadFolder, platformFolder, platformFile, separator), keys.build(platformFile));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void buildAfterDeepFolder() {
+        // Grows the buffers past their initial size, later keys must not see what was left in them
+        for (char separator : SEPARATORS) {
+            KeyBuilder keys = new KeyBuilder("build", separator);
+            List<String> folders = new ArrayList<>();
+            StringBuilder deep = new StringBuilder("root");
+            for (int i = 0; i < 100; i++) {
+                deep.append(separator).append("module-").append(i);
+            }
+            folders.add(deep.toString());
+            folders.add("short");
+            folders.add(deep.toString());
+            for (String folder : folders) {
+                keys.setFolder(folder);
+                for (String file : FILES) {
+                    String platformFile = toPlatform(file, separator);
+                    assertEquals(makeKey("build", folder, platformFile, separator), keys.build(platformFile));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void normalizeMatchesOldNormalize() {
+        for (String uploadFolder : UPLOAD_FOLDERS) {
+            for (String file : FILES) {
+                String path = uploadFolder + "/" + file;
+                assertEquals(path, normalize(path), KeyBuilder.normalize(path));
+            }
+            assertEquals(uploadFolder, normalize(uploadFolder), KeyBuilder.normalize(uploadFolder));
+        }
+    }
+
+    @Test
+    public void relativePathMatchesOldRelativePath() {
+        String root = new File("workspace").getAbsolutePath();
+        String[] paths = {root, root + File.separator, root + File.separator + "a", root + File.separator + "a" + File.separator + "b",
+                root + "-other" + File.separator + "a", root + File.separator + File.separator + "a", File.separator + "elsewhere"};
+        for (String parent : new String[]{root, root + File.separator}) {
+            for (String path : paths) {
+                FilePath file = new FilePath(new File(path));
+                FilePath parentPath = new FilePath(new File(parent));
+                assertEquals(path + " in " + parent, getRelativePath(file, parentPath), OSSUploader.getRelativePath(file, parentPath));
+            }
+        }
+    }
+
+    private static String toPlatform(String path, char separator) {
+        return separator == '/' ? path : path.replace('/', separator);
+    }
+
+    // The key building of OSSUploader before KeyBuilder, only File.separator made a parameter
+
+    private static final Pattern ABSOLUTE_PREFIX_PATTERN = Pattern.compile("^(\\\\\\\\|(?:[A-Za-z]:)?[\\\\/])[\\\\/]*");
+
+    static String getRelativePath(FilePath file, FilePath parent) {
+        String filePath = file.getRemote();
+        String parentPath = parent.getRemote();
+        if (filePath.startsWith(parentPath)) {
+            String result = filePath.substring(parentPath.length());
+            if (result.startsWith(File.separator)) {
+                return result.substring(1);
+            }
+            return result;
+        }
+        return null;
+    }
+
+    static String makeKey(String uploadFolder, String folder, String file, char separator) {
+        String separatorString = String.valueOf(separator);
+        return normalize(uploadFolder + "/" + folder.replace(separatorString, "/") + "/" + file.replace(separatorString, "/"));
+    }
+
+    static String normalize(String path) {
+        StringBuilder buf = new StringBuilder();
+        // Check for prefix designating absolute path
+        Matcher m = ABSOLUTE_PREFIX_PATTERN.matcher(path);
+        if (m.find()) {
+            buf.append(m.group(1));
+            path = path.substring(m.end());
+        }
+        boolean isAbsolute = buf.length() > 0;
+        // Split remaining path into tokens, trimming any duplicate or trailing separators
+        List<String> tokens = new ArrayList<>();
+        int s = 0, end = path.length();
+        for (int i = 0; i < end; i++) {
+            char c = path.charAt(i);
+            if (c == '/' || c == '\\') {
+                tokens.add(path.substring(s, i));
+                s = i;
+                // Skip any extra separator chars
+                //noinspection StatementWithEmptyBody
+                while (++i < end && ((c = path.charAt(i)) == '/' || c == '\\'))
+                    ;
+                // Add token for separator unless we reached the end
+                if (i < end) tokens.add(path.substring(s, s + 1));
+                s = i;
+            }
+        }
+        if (s < end) tokens.add(path.substring(s));
+        // Look through tokens for "." or ".."
+        for (int i = 0; i < tokens.size(); ) {
+            String token = tokens.get(i);
+            if (token.equals(".")) {
+                tokens.remove(i);
+                if (tokens.size() > 0)
+                    tokens.remove(i > 0 ? i - 1 : i);
+            } else if (token.equals("..")) {
+                if (i == 0) {
+                    // If absolute path, just remove: /../something
+                    // If relative path, not collapsible so leave as-is
+                    tokens.remove(0);
+                    if (tokens.size() > 0) token += tokens.remove(0);
+                    if (!isAbsolute) buf.append(token);
+                } else {
+                    // Normalize: remove something/.. plus separator before/after
+                    i -= 2;
+                    for (int j = 0; j < 3; j++) tokens.remove(i);
+                    if (i > 0) tokens.remove(i - 1);
+                    else if (tokens.size() > 0) tokens.remove(0);
+                }
+            } else
+                i += 2;
+        }
+        // Recombine tokens
+        for (String token : tokens) buf.append(token);
+        if (buf.length() == 0) buf.append('.');
+        return buf.toString();
+    }
+}
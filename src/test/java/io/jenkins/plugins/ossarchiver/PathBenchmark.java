@@ -0,0 +1,73 @@
+package io.jenkins.plugins.ossarchiver;
+
+import hudson.FilePath;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The string handling every uploaded file goes through: its path relative to the artifact folder and its key.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PathBenchmark {
+    /**
+     * Folders between the workspace and the file.
+     */
+    @Param({"2", "8", "32"})
+    public int depth;
+
+    private String uploadFolder;
+    private String folder;
+    private String file;
+    private String path;
+    private FilePath folderPath;
+    private FilePath filePath;
+    private KeyBuilder keys;
+
+    @Setup
+    public void setUp() {
+        uploadFolder = "build/my-folder/my-job/2022-03-01_12-00-00/42";
+        StringBuilder folderBuilder = new StringBuilder("target");
+        for (int i = 0; i < depth; i++) {
+            folderBuilder.append(File.separator).append("module-").append(i);
+        }
+        folder = folderBuilder.toString();
+        file = "classes" + File.separator + "io" + File.separator + "Artifact-1.0.jar";
+        // What an upload folder from environment variables and a folder with "./" or "../" may expand to
+        path = uploadFolder + "//" + folder.replace(File.separator, "/") + "/./classes/../" + file.replace(File.separator, "/");
+        folderPath = new FilePath(new File(new File("workspace").getAbsoluteFile(), folder));
+        filePath = folderPath.child(file);
+        keys = new KeyBuilder(uploadFolder);
+        keys.setFolder(folder);
+    }
+
+    @Benchmark
+    public String normalize() {
+        return KeyBuilder.normalize(path);
+    }
+
+    @Benchmark
+    public String getRelativePath() {
+        return OSSUploader.getRelativePath(filePath, folderPath);
+    }
+
+    @Benchmark
+    public String buildKey() {
+        return keys.build(file);
+    }
+
+    /**
+     * A key for the first file of an artifact folder.
+     */
+    @Benchmark
+    public String buildFirstKey() {
+        keys.setFolder(folder);
+        return keys.build(file);
+    }
+}
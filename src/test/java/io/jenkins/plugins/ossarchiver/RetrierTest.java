@@ -0,0 +1,115 @@
+package io.jenkins.plugins.ossarchiver;
+
+import hudson.model.TaskListener;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class RetrierTest {
+    private final List<Long> delays = new ArrayList<>();
+    private long now;
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker("test", () -> now);
+
+    private Retrier retrier(int maxRetries, long baseDelay, long maxDelay, int budget) {
+        return new Retrier(new RetryPolicy(maxRetries, baseDelay, maxDelay, budget), circuitBreaker,
+                new OSSArchiverLogger(TaskListener.NULL), delays::add);
+    }
+
+    /**
+     * @return a request failing {@code failures} times with {@code exception} before returning "done"
+     */
+    private static Retrier.Request<String> failing(int failures, IOException exception, AtomicInteger attempts) {
+        return () -> {
+            if (attempts.incrementAndGet() <= failures) {
+                throw exception;
+            }
+            return "done";
+        };
+    }
+
+    @Test
+    public void retriesTransientFailures() throws Exception {
+        Retrier retrier = retrier(5, 100, 1000, 100);
+        AtomicInteger attempts = new AtomicInteger();
+        assertEquals("done", retrier.call("test", failing(2, new ChecksumMismatchException("damaged"), attempts)));
+        assertEquals(3, attempts.get());
+        assertEquals(2, retrier.getRetries());
+        assertEquals(2, delays.size());
+    }
+
+    @Test
+    public void delaysWithinBackoff() throws Exception {
+        Retrier retrier = retrier(8, 100, 1000, 100);
+        AtomicInteger attempts = new AtomicInteger();
+        assertThrows(ChecksumMismatchException.class,
+                () -> retrier.call("test", failing(Integer.MAX_VALUE, new ChecksumMismatchException("damaged"), attempts)));
+        assertEquals(9, attempts.get());
+        assertEquals(8, delays.size());
+        for (int i = 0; i < delays.size(); i++) {
+            long delay = delays.get(i);
+            assertTrue("Delay " + delay + " of retry " + (i + 1), delay >= 0 && delay <= retrier.backoff(i));
+        }
+    }
+
+    @Test
+    public void backoffDoublesUpToMax() {
+        Retrier retrier = retrier(5, 100, 1000, 100);
+        assertEquals(100, retrier.backoff(0));
+        assertEquals(200, retrier.backoff(1));
+        assertEquals(800, retrier.backoff(3));
+        assertEquals(1000, retrier.backoff(4));
+        assertEquals(1000, retrier.backoff(100));
+        // The shift overflows
+        assertEquals(1000, retrier(5, 1L << 40, 1000, 100).backoff(30));
+    }
+
+    @Test
+    public void doesNotRetryOtherFailures() {
+        Retrier retrier = retrier(5, 100, 1000, 100);
+        AtomicInteger attempts = new AtomicInteger();
+        assertThrows(IOException.class, () -> retrier.call("test", failing(1, new IOException("unreadable"), attempts)));
+        assertEquals(1, attempts.get());
+        assertEquals(0, delays.size());
+    }
+
+    @Test
+    public void budgetSharedByTasks() throws Exception {
+        Retrier retrier = retrier(10, 100, 1000, 3);
+        Retrier first = retrier.forTask();
+        Retrier second = retrier.forTask();
+        AtomicInteger firstAttempts = new AtomicInteger();
+        assertThrows(ChecksumMismatchException.class,
+                () -> first.call("first", failing(Integer.MAX_VALUE, new ChecksumMismatchException("damaged"), firstAttempts)));
+        assertEquals(4, firstAttempts.get());
+        assertEquals(3, first.getRetries());
+
+        AtomicInteger secondAttempts = new AtomicInteger();
+        assertThrows(ChecksumMismatchException.class,
+                () -> second.call("second", failing(1, new ChecksumMismatchException("damaged"), secondAttempts)));
+        assertEquals(1, secondAttempts.get());
+        assertEquals(0, second.getRetries());
+        assertEquals(3, delays.size());
+    }
+
+    @Test
+    public void failsFastWhileCircuitOpen() throws Exception {
+        Retrier retrier = retrier(100, 0, 0, 100);
+        AtomicInteger attempts = new AtomicInteger();
+        assertThrows(CircuitBreaker.OpenException.class,
+                () -> retrier.call("test", failing(Integer.MAX_VALUE, new ChecksumMismatchException("damaged"), attempts)));
+        // Opened by the 20th failure, the 21st attempt is not sent
+        assertEquals(20, attempts.get());
+
+        now += 30_000;
+        AtomicInteger halfOpenAttempts = new AtomicInteger();
+        assertEquals("done", retrier.call("test", failing(0, null, halfOpenAttempts)));
+        assertEquals(1, halfOpenAttempts.get());
+    }
+}
@@ -0,0 +1,72 @@
+package io.jenkins.plugins.ossarchiver;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class TokenBucketTest {
+    private long now;
+
+    private TokenBucket bucket(long rate) {
+        return new TokenBucket(rate, () -> now);
+    }
+
+    private void advance(long millis) {
+        now += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    @Test
+    public void unlimited() {
+        TokenBucket bucket = bucket(0);
+        assertEquals(0, bucket.charge(Long.MAX_VALUE / 2));
+        assertEquals(0, bucket.charge(Long.MAX_VALUE / 2));
+    }
+
+    @Test
+    public void burstOfOneSecond() {
+        TokenBucket bucket = bucket(1000);
+        assertEquals(0, bucket.charge(600));
+        assertEquals(0, bucket.charge(400));
+        // Debt is paid back at the rate
+        assertEquals(250, bucket.charge(250));
+        assertEquals(500, bucket.charge(250));
+    }
+
+    @Test
+    public void refillsAtRate() {
+        TokenBucket bucket = bucket(1000);
+        assertEquals(500, bucket.charge(1500));
+        advance(500);
+        assertEquals(0, bucket.charge(0));
+        advance(200);
+        assertEquals(0, bucket.charge(200));
+        assertEquals(1, bucket.charge(1));
+    }
+
+    @Test
+    public void refillCappedAtBurst() {
+        TokenBucket bucket = bucket(1000);
+        advance(TimeUnit.MINUTES.toMillis(10));
+        assertEquals(0, bucket.charge(1000));
+        assertEquals(100, bucket.charge(100));
+    }
+
+    @Test
+    public void lowerRateCapsTokens() {
+        TokenBucket bucket = bucket(1000);
+        bucket.setRate(100);
+        assertEquals(0, bucket.charge(100));
+        assertEquals(1000, bucket.charge(100));
+        advance(1000);
+        assertEquals(0, bucket.charge(0));
+    }
+
+    @Test
+    public void waitRoundedUp() {
+        TokenBucket bucket = bucket(3);
+        assertEquals(0, bucket.charge(3));
+        assertEquals(334, bucket.charge(1));
+    }
+}
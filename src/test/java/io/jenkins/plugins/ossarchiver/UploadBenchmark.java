@@ -0,0 +1,118 @@
+package io.jenkins.plugins.ossarchiver;
+
+import hudson.FilePath;
+import hudson.Util;
+import hudson.model.TaskListener;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes a workspace end to end through {@link OSSUploader} to a {@link FakeOssServer}, one publish per operation.
+ * <p>
+ * Besides publishes per second, the files and bytes counters give the per file and byte rates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UploadBenchmark {
+    private static final long MB = 1024 * 1024;
+
+    /**
+     * Milliseconds the stand-in waits before answering each request.
+     */
+    @Param({"0", "20"})
+    public int latency;
+
+    /**
+     * MB per second the stand-in reads, 0 for unlimited.
+     */
+    @Param({"0", "100"})
+    public int bandwidth;
+
+    @Param({"1000"})
+    public int files;
+
+    @Param({"65536"})
+    public int fileSize;
+
+    @Param({"8"})
+    public int concurrency;
+
+    @Param({"false", "true"})
+    public boolean verifyChecksums;
+
+    private FakeOssServer server;
+    private File workspace;
+    private UploadOptions options;
+    private List<OSSArchiverPublisher.ArtifactConfig> artifacts;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new FakeOssServer(latency, bandwidth * MB);
+        workspace = Files.createTempDirectory("oss-archiver-upload").toFile();
+        Random random = new Random(0);
+        byte[] content = new byte[fileSize];
+        for (int i = 0; i < files; i++) {
+            File folder = new File(workspace, "target" + File.separator + "module-" + i / 100);
+            if (i % 100 == 0 && !folder.mkdirs()) {
+                throw new IOException("Failed to create " + folder);
+            }
+            random.nextBytes(content);
+            try (OutputStream outputStream = new FileOutputStream(new File(folder, "artifact-" + i + ".jar"))) {
+                outputStream.write(content);
+            }
+        }
+        options = new UploadOptions(new OSSClientSettings(server.getEndPoint(), "benchmark", "id", "secret"),
+                "bucket", "build/benchmark/1");
+        options.setConcurrency(concurrency);
+        options.setMultipartThreshold(100 * MB);
+        options.setMultipartPartSize(10 * MB);
+        options.setRetryPolicy(new RetryPolicy(0, 500, 30000, 0));
+        options.setVerifyChecksums(verifyChecksums);
+        artifacts = Collections.singletonList(new OSSArchiverPublisher.ArtifactConfig("target", "**/*.jar"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        server.close();
+        Util.deleteRecursive(workspace);
+        Util.deleteRecursive(new File(workspace.getPath() + "@tmp"));
+    }
+
+    @Benchmark
+    public UploadReport upload(Counters counters) throws IOException, InterruptedException {
+        UploadReport report = new OSSUploader(options, new OSSArchiverLogger(TaskListener.NULL))
+                .upload(new FilePath(workspace), artifacts);
+        if (report.getFailureCount() > 0) {
+            throw new IllegalStateException("Uploads failed: " + report.getFailures());
+        }
+        counters.files += report.getStatistics().getFiles();
+        counters.bytes += report.getStatistics().getBytes();
+        return report;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long files;
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            files = 0;
+            bytes = 0;
+        }
+    }
+}
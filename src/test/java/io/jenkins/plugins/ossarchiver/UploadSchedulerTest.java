@@ -0,0 +1,112 @@
+package io.jenkins.plugins.ossarchiver;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class UploadSchedulerTest {
+    private final List<UploadScheduler.Session> sessions = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+
+    @After
+    public void tearDown() throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.interrupt();
+            thread.join();
+        }
+        for (UploadScheduler.Session session : sessions) {
+            session.close();
+        }
+        UploadScheduler.configure(0, 0, 0, 0);
+    }
+
+    private UploadScheduler.Session open(String job) {
+        UploadScheduler.Session session = UploadScheduler.open(job, "");
+        sessions.add(session);
+        return session;
+    }
+
+    /**
+     * @return a started thread taking a slot of {@code session}, once it waits for one
+     */
+    private Thread acquireInBackground(UploadScheduler.Session session) throws InterruptedException {
+        Thread thread = new Thread(() -> {
+            try {
+                session.acquireSlot();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        threads.add(thread);
+        thread.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (thread.getState() != Thread.State.WAITING) {
+            assertTrue("Slot taken without waiting", thread.isAlive());
+            assertTrue("Not waiting for a slot", System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+        return thread;
+    }
+
+    @Test
+    public void noSessionWithoutLimits() {
+        UploadScheduler.configure(0, 0, 0, 0);
+        assertNull(UploadScheduler.open("job", ""));
+    }
+
+    @Test
+    public void freeSlotGoesToSessionHoldingFewest() throws InterruptedException {
+        UploadScheduler.configure(2, 0, 0, 0);
+        UploadScheduler.Session large = open("large");
+        large.acquireSlot();
+        large.acquireSlot();
+        UploadScheduler.Session small = open("small");
+        // The large publish asks first, the small one was opened later and holds nothing
+        Thread largeWaiting = acquireInBackground(large);
+        Thread smallWaiting = acquireInBackground(small);
+
+        large.releaseSlot();
+        smallWaiting.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse("Small publish did not get the free slot", smallWaiting.isAlive());
+        assertTrue("Large publish took the slot", largeWaiting.isAlive());
+
+        // Both hold one now, the next slot goes to the large publish
+        large.releaseSlot();
+        largeWaiting.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse("Large publish did not get the free slot", largeWaiting.isAlive());
+    }
+
+    @Test
+    public void tieGoesToEarliestSession() throws InterruptedException {
+        UploadScheduler.configure(1, 0, 0, 0);
+        UploadScheduler.Session first = open("first");
+        UploadScheduler.Session second = open("second");
+        UploadScheduler.Session holder = open("holder");
+        holder.acquireSlot();
+        Thread secondWaiting = acquireInBackground(second);
+        Thread firstWaiting = acquireInBackground(first);
+
+        holder.releaseSlot();
+        firstWaiting.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse("First session did not get the free slot", firstWaiting.isAlive());
+        assertTrue("Second session took the slot", secondWaiting.isAlive());
+    }
+
+    @Test
+    public void closedSessionFreesItsSlots() throws InterruptedException {
+        UploadScheduler.configure(1, 0, 0, 0);
+        UploadScheduler.Session aborted = open("aborted");
+        aborted.acquireSlot();
+        Thread waiting = acquireInBackground(open("other"));
+
+        aborted.close();
+        waiting.join(TimeUnit.SECONDS.toMillis(10));
+        assertFalse("Slot of the closed session was not freed", waiting.isAlive());
+    }
+}